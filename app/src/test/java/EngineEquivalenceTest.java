@@ -0,0 +1,43 @@
+import io.InputParser;
+import org.junit.jupiter.api.Test;
+import util.RandomSource;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the rate-based engine simulates the same process as the PEC engine,
+ * with the comparison of {@link EquivalenceRunner} on a fixed seed. The scenarios
+ * are cut to half their final time so the check stays short; the first half holds
+ * the growth of the population and the first hits, where the engines would part.
+ * With this seed and run count, making the reproduction rate of the rate-based
+ * engine 10% higher, its move rate 20% higher, its death rate 50% higher, or
+ * drawing moves 10% less often than their rate, each fails the check.
+ */
+class EngineEquivalenceTest {
+    private static final int RUNS = 30;
+    private static final long SEED = 3L;
+    private static final double THRESHOLD = 4.0;
+
+    @Test
+    void mountainPass() throws Exception {
+        assertEquivalent("MountainPass");
+    }
+
+    @Test
+    void canyonBridge() throws Exception {
+        assertEquivalent("CanyonBridge");
+    }
+
+    private static void assertEquivalent(String scenario) throws Exception {
+        File file = new File(System.getProperty("basedir", "."), "../SIM/" + scenario + ".txt");
+        Map<String, Object> parameters = InputParser.parseFile(file.getPath());
+        parameters.put("simulationTime", (double) parameters.get("simulationTime") / 2);
+
+        double worst = EquivalenceRunner.compareEngines(parameters, RUNS, 1, "heap",
+                RandomSource.create(SEED), null);
+        assertTrue(worst < THRESHOLD, scenario + ": largest |t| " + worst + " is not below " + THRESHOLD);
+    }
+}
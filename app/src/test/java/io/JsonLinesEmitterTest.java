@@ -0,0 +1,33 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonLinesEmitterTest {
+    @Test
+    void writesFiniteTimesAsNumbers() {
+        assertEquals("{\"type\":\"observation\",\"observation\":1,\"time\":12.5,\"events\":7,\"populationSize\":3,"
+                + "\"finalPointHit\":false,\"cost\":null,\"comfort\":null,\"path\":null}\n", emitObservation(12.5));
+    }
+
+    @Test
+    void writesNonFiniteTimesAsNull() {
+        String expected = "{\"type\":\"observation\",\"observation\":1,\"time\":null,\"events\":7,\"populationSize\":3,"
+                + "\"finalPointHit\":false,\"cost\":null,\"comfort\":null,\"path\":null}\n";
+        assertEquals(expected, emitObservation(Double.NaN));
+        assertEquals(expected, emitObservation(Double.POSITIVE_INFINITY));
+        assertEquals(expected, emitObservation(Double.NEGATIVE_INFINITY));
+    }
+
+    private static String emitObservation(double time) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonLinesEmitter emitter = new JsonLinesEmitter(new StreamOutputSink(out));
+        emitter.emitObservation(1, time, 7, 3, false, null);
+        emitter.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package util;
+
+import model.Grid;
+import model.Path;
+import model.Point;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the comfort computed by a calculator instance agrees with the original
+ * static formula. Random walks on seeded random grids, with obstacles and special
+ * cost zones, are scored by both after every step, for integral and non-integral
+ * sensitivities. Paths whose comfort is NaN for both, such as those whose cost
+ * component is negative with a non-integral k, agree.
+ * <p>
+ * The two cannot agree to one ulp for every k: the original raises both components
+ * to k and multiplies them, the instance rounds their product once and raises it to
+ * k, by repeated squaring for an integral k. Raising to the power k multiplies a
+ * relative error by k, so the rounding of the product alone can move the result by
+ * about k/2 ulps, and every squaring step adds its own rounding. The tolerance is
+ * therefore 2 ulps for the final roundings plus 2 ulps per unit of k; the largest
+ * difference seen with the fixed seed is 16 ulps at k = 10 and none at k = 1.
+ */
+class ComfortCalculatorTest {
+    private static final long SEED = 1L;
+    private static final int GRIDS = 8;
+    private static final int STEPS = 50_000; // Walk steps per grid
+    private static final int WALK_LENGTH = 2_000; // Steps before a walk starts over
+    private static final double BASE_ULPS = 2.0;
+    private static final double ULPS_PER_SENSITIVITY = 2.0;
+
+    private static Grid[] grids;
+
+    @BeforeAll
+    static void createGrids() {
+        RandomSource random = RandomSource.create(SEED);
+        grids = new Grid[GRIDS];
+        for (int i = 0; i < GRIDS; i++) {
+            int width = 5 + random.nextInt(60);
+            int height = 5 + random.nextInt(60);
+            Point initialPoint = new Point(1, 1);
+            Point finalPoint = new Point(width, height);
+            List<Point> obstacles = RandomGenerator.generateRandomObstacles(
+                    random.nextInt(width * height / 8 + 1), width, height, initialPoint, finalPoint, random);
+            List<Grid.SpecialCostZone> zones = RandomGenerator.generateRandomSpecialCostZones(
+                    random.nextInt(6), width, height, random);
+            grids[i] = new Grid(width, height, initialPoint, finalPoint, obstacles, zones);
+        }
+    }
+
+    @ParameterizedTest(name = "k = {0}")
+    @ValueSource(doubles = {1.0, 2.0, 3.0, 6.0, 10.0, 0.5, 0.7, 1.5, 2.5, 3.3})
+    void instanceMatchesStaticFormula(double sensitivity) {
+        // The walks of every k start from the same seed
+        RandomSource random = RandomSource.create(SEED);
+        double worst = 0.0;
+        for (Grid grid : grids) {
+            worst = Math.max(worst, compareWalk(grid, sensitivity, random));
+        }
+
+        double tolerance = BASE_ULPS + ULPS_PER_SENSITIVITY * sensitivity;
+        assertTrue(worst <= tolerance, "largest difference " + worst + " ulp is above " + tolerance + " ulp");
+    }
+
+    /**
+     * Walks randomly over a grid and compares both comfort computations after every step.
+     *
+     * @return The largest difference, in units in the last place of the static result
+     */
+    private static double compareWalk(Grid grid, double sensitivity, RandomSource random) {
+        ComfortCalculator calculator = new ComfortCalculator(grid, sensitivity);
+        int gridSize = grid.getWidth() + grid.getHeight();
+        double worst = 0.0;
+        Path path = null;
+        for (int step = 0; step < STEPS; step++) {
+            if (step % WALK_LENGTH == 0) {
+                path = new Path();
+                path.addPoint(grid.getInitialPoint(), grid);
+            }
+            Point next = grid.getRandomAdjacentPoint(path.getLastPoint(), random);
+            if (next == null) {
+                continue; // Walled in
+            }
+            path.addPoint(next, grid);
+
+            double expected = ComfortCalculator.calculateComfort(path, path.getLastPoint(), grid.getFinalPoint(),
+                    grid.getMaxCost(), gridSize, sensitivity);
+            double actual = calculator.calculateComfort(path);
+            if (Double.compare(actual, expected) != 0) {
+                // A difference below the smallest normal number counts as within one ulp of it; NaN fails
+                double unit = Math.ulp(Math.max(Math.abs(expected), Double.MIN_NORMAL));
+                worst = Math.max(worst, Math.abs(actual - expected) / unit);
+                if (Double.isNaN(actual) || Double.isNaN(expected)) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        return worst;
+    }
+}
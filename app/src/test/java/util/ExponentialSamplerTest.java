@@ -0,0 +1,113 @@
+package util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the ziggurat sampler draws from the exponential distribution with
+ * mean 1. A fixed-seed sample is compared with the distribution on its mean, its
+ * variance, its Kolmogorov-Smirnov distance and the frequency of values beyond a
+ * few points of the tail, including the start of the tail strip.
+ * Every statistic may deviate by five standard errors, so a correct sampler would
+ * fail with a negligible probability, and the fixed seed makes the verdict the same
+ * on every run.
+ */
+class ExponentialSamplerTest {
+    private static final int SAMPLES = 2_000_000;
+    private static final long SEED = 1L;
+    private static final double MAX_Z = 5.0; // Allowed deviation, in standard errors
+    private static final double KS_CRITICAL = 1.95; // Kolmogorov-Smirnov critical value at 0.1%, times sqrt(n)
+
+    private static double[] sorted;
+    private static double mean;
+    private static double variance;
+
+    @BeforeAll
+    static void drawSample() {
+        RandomSource random = RandomSource.create(SEED);
+        sorted = new double[SAMPLES];
+        double sum = 0.0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sorted[i] = ExponentialSampler.sample(random);
+            sum += sorted[i];
+        }
+        mean = sum / SAMPLES;
+        double squares = 0.0;
+        for (double value : sorted) {
+            squares += (value - mean) * (value - mean);
+        }
+        variance = squares / (SAMPLES - 1);
+        Arrays.sort(sorted);
+    }
+
+    @Test
+    void meanIsOne() {
+        // The mean of n values has variance 1/n
+        double z = (mean - 1.0) * Math.sqrt(SAMPLES);
+        assertTrue(Math.abs(z) < MAX_Z, "mean " + mean + " is " + z + " standard errors off");
+    }
+
+    @Test
+    void varianceIsOne() {
+        // The variance of n values has variance (μ4 - σ⁴)/n = 8/n
+        double z = (variance - 1.0) / Math.sqrt(8.0 / SAMPLES);
+        assertTrue(Math.abs(z) < MAX_Z, "variance " + variance + " is " + z + " standard errors off");
+    }
+
+    @Test
+    void kolmogorovSmirnovDistanceIsSmall() {
+        double distance = 0.0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double cdf = -Math.expm1(-sorted[i]);
+            distance = Math.max(distance, Math.max(cdf - (double) i / SAMPLES, (double) (i + 1) / SAMPLES - cdf));
+        }
+        double critical = KS_CRITICAL / Math.sqrt(SAMPLES);
+        assertTrue(distance < critical, "KS distance " + distance + " is not below " + critical);
+    }
+
+    @Test
+    void tailFrequenciesMatch() {
+        for (double point : new double[]{1.0, 3.0, 5.0, 7.69711747013104972, 10.0, 12.0}) {
+            // Values beyond the point are binomial with p = exp(-point)
+            int beyond = SAMPLES - upperIndex(point);
+            double expected = Math.exp(-point);
+            double z = (beyond - SAMPLES * expected) / Math.sqrt(SAMPLES * expected * (1.0 - expected));
+            assertTrue(Math.abs(z) < MAX_Z, beyond + " values beyond " + point + " are " + z
+                    + " standard errors off");
+        }
+    }
+
+    @Test
+    void scaledSampleHasTheGivenMean() {
+        RandomSource random = RandomSource.create(SEED);
+        int samples = 200_000;
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            sum += ExponentialSampler.sample(random, 3.0);
+        }
+        // The mean of n values with mean 3 has standard deviation 3/sqrt(n)
+        double z = (sum / samples - 3.0) / (3.0 / Math.sqrt(samples));
+        assertTrue(Math.abs(z) < MAX_Z, "scaled mean is " + z + " standard errors off");
+    }
+
+    /**
+     * Gets the number of sample values that are at most a point.
+     */
+    private static int upperIndex(double point) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= point) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
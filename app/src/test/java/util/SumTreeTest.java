@@ -0,0 +1,94 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SumTreeTest {
+    @Test
+    void findsTheShareContainingTheTarget() {
+        SumTree tree = new SumTree(4);
+        tree.set(0, 1.0);
+        tree.set(1, 2.0);
+        tree.set(2, 3.0);
+        tree.set(3, 4.0);
+
+        assertEquals(10.0, tree.getTotal());
+        assertEquals(0, tree.find(0.0));
+        assertEquals(0, tree.find(0.999));
+        assertEquals(1, tree.find(1.0));
+        assertEquals(1, tree.find(2.999));
+        assertEquals(2, tree.find(3.0));
+        assertEquals(3, tree.find(6.0));
+        assertEquals(3, tree.find(9.999));
+    }
+
+    @Test
+    void neverFindsZeroWeights() {
+        SumTree tree = new SumTree(8);
+        tree.set(2, 1.0);
+        tree.set(5, 1.0);
+
+        // Shares start and end at 1; every target up to the total lands on a positive weight
+        assertEquals(2, tree.find(0.0));
+        assertEquals(2, tree.find(Math.nextDown(1.0)));
+        assertEquals(5, tree.find(1.0));
+        assertEquals(5, tree.find(Math.nextDown(2.0)));
+        assertEquals(5, tree.find(2.0)); // At the total, past the last share
+        assertEquals(5, tree.find(3.0));
+    }
+
+    @Test
+    void neverFindsZeroWeightsOnRoundingEdges() {
+        SumTree tree = new SumTree(4);
+        tree.set(0, 0.1);
+        tree.set(1, 0.2);
+        tree.set(2, 0.0);
+        tree.set(3, 0.0);
+
+        // The total 0.1 + 0.2 rounds above 0.3, so a target at the total overshoots both shares
+        assertEquals(1, tree.find(tree.getTotal()));
+        assertEquals(1, tree.find(Math.nextDown(tree.getTotal())));
+        assertEquals(0, tree.find(Math.nextDown(0.1)));
+    }
+
+    @Test
+    void weightSetToZeroIsNotFoundAgain() {
+        SumTree tree = new SumTree(4);
+        tree.set(0, 1.0);
+        tree.set(1, 1.0);
+        tree.set(0, 0.0);
+
+        assertEquals(1.0, tree.getTotal());
+        assertEquals(1, tree.find(0.0));
+        assertEquals(1, tree.find(Math.nextDown(1.0)));
+    }
+
+    @Test
+    void totalIsExactAfterManyUpdates() {
+        SumTree tree = new SumTree(16);
+        RandomSource random = RandomSource.create(1L);
+        for (int i = 0; i < 100_000; i++) {
+            tree.set(random.nextInt(16), random.nextDouble());
+        }
+        for (int i = 0; i < 16; i++) {
+            tree.set(i, 0.0);
+        }
+
+        // Recomputed from the leaves, not adjusted by differences, so no rounding is left over
+        assertEquals(0.0, tree.getTotal());
+    }
+
+    @Test
+    void growsToFitNewIndices() {
+        SumTree tree = new SumTree(2);
+        tree.set(0, 1.0);
+        tree.set(9, 2.0);
+
+        assertEquals(3.0, tree.getTotal());
+        assertEquals(1.0, tree.get(0));
+        assertEquals(2.0, tree.get(9));
+        assertEquals(0.0, tree.get(100));
+        assertEquals(9, tree.find(1.5));
+    }
+}
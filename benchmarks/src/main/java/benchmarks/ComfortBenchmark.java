@@ -0,0 +1,83 @@
+package benchmarks;
+
+import model.Grid;
+import model.Path;
+import model.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ComfortCalculator;
+import util.RandomSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comfort of the paths of a random walk, with the general static formula and
+ * with the calculator specialised for the grid and sensitivity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComfortBenchmark {
+    private static final int PATHS = 256;
+
+    @Param({"3", "2.5"})
+    public double k;
+
+    private Grid grid;
+    private Path[] paths;
+    private ComfortCalculator calculator;
+
+    @Setup
+    public void setUp() throws IOException {
+        grid = Scenarios.grid("TheLabyrinth");
+        calculator = new ComfortCalculator(grid, k);
+
+        RandomSource random = RandomSource.create(42);
+        Path path = new Path();
+        path.addPoint(grid.getInitialPoint(), null);
+        paths = new Path[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            for (int step = 0; step < 8; step++) {
+                path.addPoint(grid.getRandomAdjacentPoint(path.getLastPoint(), random), grid);
+            }
+            paths[i] = new Path(path);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public double calculateComfortStatic() {
+        double sum = 0;
+        Point finalPoint = grid.getFinalPoint();
+        int gridSize = grid.getWidth() + grid.getHeight();
+        for (Path path : paths) {
+            sum += ComfortCalculator.calculateComfort(path, path.getLastPoint(), finalPoint,
+                    grid.getMaxCost(), gridSize, k);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public double calculateComfortSpecialised() {
+        double sum = 0;
+        for (Path path : paths) {
+            sum += calculator.calculateComfort(path);
+        }
+        return sum;
+    }
+}
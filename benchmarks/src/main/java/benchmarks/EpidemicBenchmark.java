@@ -0,0 +1,66 @@
+package benchmarks;
+
+import model.Grid;
+import model.Individual;
+import model.Population;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ComfortCalculator;
+import util.RandomSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One epidemic in a full population of TheLabyrinth scenario whose individuals
+ * have walked a little, so their comforts differ.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpidemicBenchmark {
+    @Param({"800"})
+    public int maxPopulation;
+
+    private Grid grid;
+    private ComfortCalculator calculator;
+    private RandomSource random;
+    private Population population;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        grid = Scenarios.grid("TheLabyrinth");
+        calculator = new ComfortCalculator(grid, 3);
+        random = RandomSource.create(42);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpPopulation() {
+        population = new Population(grid, maxPopulation, maxPopulation, 3, 80, random, 0.0);
+        for (Individual individual : population.getIndividuals()) {
+            for (int step = 0; step < 10; step++) {
+                individual.move(grid, calculator, random);
+            }
+            population.update(individual);
+        }
+    }
+
+    @Benchmark
+    public Population simulateEpidemic() {
+        population.simulateEpidemic(random);
+        return population;
+    }
+}
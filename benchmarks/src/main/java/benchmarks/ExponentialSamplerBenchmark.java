@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ExponentialSampler;
+import util.RandomSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponential samples from the ziggurat sampler and from the inverse transform
+ * with a clamped logarithm that it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExponentialSamplerBenchmark {
+    private RandomSource random;
+
+    @Setup
+    public void setUp() {
+        random = RandomSource.create(42);
+    }
+
+    @Benchmark
+    public double ziggurat() {
+        return ExponentialSampler.sample(random);
+    }
+
+    @Benchmark
+    public double inverseTransform() {
+        return -Math.log(Math.max(0.00001, random.nextDouble()));
+    }
+}
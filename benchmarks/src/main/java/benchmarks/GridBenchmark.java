@@ -0,0 +1,66 @@
+package benchmarks;
+
+import model.Grid;
+import model.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.RandomSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grid queries on the walls and cost zones of TheLabyrinth scenario, at the
+ * points of a random walk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    private static final int POINTS = 1024;
+
+    private Grid grid;
+    private Point[] walk;
+
+    @Setup
+    public void setUp() throws IOException {
+        grid = Scenarios.grid("TheLabyrinth");
+        RandomSource random = RandomSource.create(42);
+        walk = new Point[POINTS + 1];
+        walk[0] = grid.getInitialPoint();
+        for (int i = 1; i <= POINTS; i++) {
+            walk[i] = grid.getRandomAdjacentPoint(walk[i - 1], random);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int getEdgeCost() {
+        int sum = 0;
+        for (int i = 1; i <= POINTS; i++) {
+            sum += grid.getEdgeCost(walk[i - 1], walk[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void getValidAdjacentPoints(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(grid.getValidAdjacentPoints(walk[i]));
+        }
+    }
+}
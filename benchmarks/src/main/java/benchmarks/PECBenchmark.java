@@ -0,0 +1,63 @@
+package benchmarks;
+
+import model.Individual;
+import model.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.CalendarPEC;
+import simulation.DeathEvent;
+import simulation.Event;
+import simulation.HeapPEC;
+import simulation.PEC;
+import util.ExponentialSampler;
+import util.RandomSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classic hold benchmark of the pending event containers: remove the earliest
+ * event and schedule a new one an exponential time later, at a steady size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PECBenchmark {
+    @Param({"heap", "calendar"})
+    public String type;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private PEC pec;
+    private Individual individual;
+    private RandomSource random;
+
+    @Setup
+    public void setUp() {
+        pec = "heap".equals(type) ? new HeapPEC() : new CalendarPEC();
+        random = RandomSource.create(42);
+        individual = new Individual(new Point(1, 1), 0.0, 1.0, 1.0, random);
+        for (int i = 0; i < size; i++) {
+            pec.addEvent(new DeathEvent(ExponentialSampler.sample(random, size), individual));
+        }
+    }
+
+    @Benchmark
+    public Event hold() {
+        Event event = pec.nextEvent();
+        pec.addEvent(new DeathEvent(event.getTime() + ExponentialSampler.sample(random, size), individual));
+        return event;
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import model.Grid;
+import model.Path;
+import model.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.RandomSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Path.addPoint, along a walk that never revisits a point and along a
+ * random walk whose revisits cut cycles out of the path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+    private static final int SIDE = 100;
+    private static final int STEPS = SIDE * SIDE - 1;
+
+    private Grid grid;
+    private Point[] snakeWalk;
+    private Point[] randomWalk;
+
+    @Setup
+    public void setUp() {
+        grid = new Grid(SIDE, SIDE, new Point(1, 1), new Point(SIDE, SIDE));
+
+        // Row by row, alternating direction: every cell exactly once
+        snakeWalk = new Point[STEPS + 1];
+        int i = 0;
+        for (int y = 1; y <= SIDE; y++) {
+            for (int k = 0; k < SIDE; k++) {
+                int x = y % 2 == 1 ? k + 1 : SIDE - k;
+                snakeWalk[i++] = grid.pointAt(x, y);
+            }
+        }
+
+        RandomSource random = RandomSource.create(42);
+        randomWalk = new Point[STEPS + 1];
+        randomWalk[0] = grid.getInitialPoint();
+        for (i = 1; i <= STEPS; i++) {
+            randomWalk[i] = grid.getRandomAdjacentPoint(randomWalk[i - 1], random);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public Path addPointWithoutCycles() {
+        return walk(snakeWalk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public Path addPointWithCycles() {
+        return walk(randomWalk);
+    }
+
+    private Path walk(Point[] walk) {
+        Path path = new Path();
+        path.addPoint(walk[0], null);
+        for (int i = 1; i < walk.length; i++) {
+            path.addPoint(walk[i], grid);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import io.InputParser;
+import io.OutputGenerator;
+import model.Grid;
+import simulation.PEC;
+import simulation.Simulator;
+import util.RandomSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Loads the scenarios in the SIM folder for the benchmarks.
+ * The folder is taken from the system property "sim.dir", or found as SIM or ../SIM
+ * relative to the working directory.
+ */
+final class Scenarios {
+    private Scenarios() {
+    }
+
+    /**
+     * Parses a scenario.
+     *
+     * @param name The scenario name, e.g. "TheLabyrinth"
+     * @return The parsed parameters
+     * @throws IOException If the scenario cannot be read
+     */
+    static Map<String, Object> load(String name) throws IOException {
+        return InputParser.parseFile(new File(simDirectory(), name + ".txt").getPath());
+    }
+
+    /**
+     * Parses a scenario and gets its grid.
+     *
+     * @param name The scenario name
+     * @return The grid
+     * @throws IOException If the scenario cannot be read
+     */
+    static Grid grid(String name) throws IOException {
+        return (Grid) load(name).get("grid");
+    }
+
+    /**
+     * Creates a simulator for a parsed scenario that prints nowhere.
+     *
+     * @param parameters The parsed parameters
+     * @param seed The seed of the random source
+     * @param pec The empty PEC to schedule events in
+     * @return The simulator
+     */
+    static Simulator simulator(Map<String, Object> parameters, long seed, PEC pec) {
+        Simulator simulator = new Simulator(
+                (Grid) parameters.get("grid"),
+                (int) parameters.get("initialPopulation"),
+                (int) parameters.get("maxPopulation"),
+                (double) parameters.get("comfortSensitivity"),
+                (double) parameters.get("deathMean"),
+                (double) parameters.get("moveMean"),
+                (double) parameters.get("reproductionMean"),
+                (double) parameters.get("simulationTime"),
+                pec,
+                RandomSource.create(seed)
+        );
+        simulator.setOutputGenerator(new OutputGenerator(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, false));
+        return simulator;
+    }
+
+    private static File simDirectory() {
+        String configured = System.getProperty("sim.dir");
+        if (configured != null) {
+            return new File(configured);
+        }
+        File local = new File("SIM");
+        return local.isDirectory() ? local : new File("../SIM");
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import model.Individual;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.CalendarPEC;
+import simulation.HeapPEC;
+import simulation.IndividualPEC;
+import simulation.PEC;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete simulation of every scenario in the SIM folder with a fixed seed, so
+ * every invocation replays the same run, with each pending event container.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"CanyonBridge", "FortressCourtyard", "MountainPass", "TheGauntlet", "TheLabyrinth"})
+    public String scenario;
+
+    @Param({"1"})
+    public long seed;
+
+    @Param({"heap", "calendar", "individual"})
+    public String pec;
+
+    private Map<String, Object> parameters;
+
+    @Setup
+    public void setUp() throws IOException {
+        parameters = Scenarios.load(scenario);
+    }
+
+    @Benchmark
+    public Individual simulate() {
+        return Scenarios.simulator(parameters, seed, createPEC()).simulate();
+    }
+
+    private PEC createPEC() {
+        if ("calendar".equals(pec)) {
+            return new CalendarPEC();
+        } else if ("individual".equals(pec)) {
+            return new IndividualPEC();
+        }
+        return new HeapPEC();
+    }
+}
@@ -177,14 +177,18 @@ echo "=== PATHFINDER SIMULATION RUNNER ==="
 echo "Visualization: ${VISUALIZE_FLAG:-disabled}"
 echo
 
-# Check if project.jar exists (try both locations)
+# Use the jar built by Maven, rebuilt so it is never stale; out/project.jar is kept as a fallback
 JAR_PATH=""
-if [[ -f "project.jar" ]]; then
-    JAR_PATH="project.jar"
+if command -v mvn >/dev/null 2>&1; then
+    echo "Building app/target/project.jar..."
+    mvn -B -q -pl app -am package -DskipTests || exit 1
+fi
+if [[ -f "app/target/project.jar" ]]; then
+    JAR_PATH="app/target/project.jar"
 elif [[ -f "out/project.jar" ]]; then
     JAR_PATH="out/project.jar"
 else
-    echo "Error: project.jar not found (checked current directory and out/ folder)" >&2
+    echo "Error: project.jar not found (checked app/target/ and out/; build it with mvn package)" >&2
     exit 1
 fi
 
@@ -237,122 +237,18 @@ create_grid_visualization() {
     echo
 }
 
-# Function to extract cost from final result line
-extract_cost() {
-    local output="$1"
-    echo "$output" | grep "Best fit individual:" | sed 's/.*with cost \([0-9]*\)/\1/'
-}
-
-# Function to check if final point was reached
-reached_final() {
-    local output="$1"
-    local final_line=$(echo "$output" | grep "Best fit individual:")
-    if [[ $final_line == *"with cost"* ]]; then
-        echo "true"
-    else
-        echo "false"
-    fi
-}
-
-# Function to extract comfort (if no solution found)
-extract_comfort() {
-    local output="$1"
-    # Look for the last comfort value in observations
-    echo "$output" | grep "Comfort:" | tail -1 | sed 's/Comfort: \([0-9.]*\)/\1/' | head -1
-}
-
-# Function to compare two simulation results
-# Returns 1 if first is better, 0 if second is better
-is_better() {
-    local output1="$1"
-    local output2="$2"
-    
-    local reached1=$(reached_final "$output1")
-    local reached2=$(reached_final "$output2")
-    
-    # If both reached final, compare costs (lower is better)
-    if [[ "$reached1" == "true" && "$reached2" == "true" ]]; then
-        local cost1=$(extract_cost "$output1")
-        local cost2=$(extract_cost "$output2")
-        if [[ $cost1 -lt $cost2 ]]; then
-            echo 1
-        else
-            echo 0
-        fi
-    # If only first reached final, first is better
-    elif [[ "$reached1" == "true" && "$reached2" == "false" ]]; then
-        echo 1
-    # If only second reached final, second is better
-    elif [[ "$reached1" == "false" && "$reached2" == "true" ]]; then
-        echo 0
-    # If neither reached final, compare comfort (higher is better)
-    else
-        local comfort1=$(extract_comfort "$output1")
-        local comfort2=$(extract_comfort "$output2")
-        # Use awk for floating point comparison
-        if [[ -n "$comfort1" && -n "$comfort2" ]]; then
-            local result=$(awk "BEGIN {print ($comfort1 > $comfort2) ? 1 : 0}")
-            echo $result
-        else
-            echo 0
-        fi
-    fi
-}
-
-# Function to run simulation multiple times and find best result
+# Function to run all replicas of a scenario in one JVM and keep the best result
 run_scenario() {
     local input_file="$1"
     local runs=20
-    
+
     # Extract base name (e.g., "maze" from "SIM/maze.txt")
     local base_name=$(basename "$input_file" .txt)
     local output_file="SIM/${base_name}Results.txt"
-    
-    echo "Running $base_name..."
-    
-    local best_output=""
-    local solutions_found=0
-    
-    for ((i=1; i<=runs; i++)); do
-        echo -n "  Run $i/$runs..."
-        
-        # Run simulation without visualization for performance testing
-        local current_output=$(java -jar "$JAR_PATH" -f "$input_file" 2>/dev/null)
-        
-        # Check if this is a valid output
-        if [[ -n "$current_output" ]] && echo "$current_output" | grep -q "Best fit individual:"; then
-            # Check if solution was found
-            if [[ $(reached_final "$current_output") == "true" ]]; then
-                ((solutions_found++))
-                local cost=$(extract_cost "$current_output")
-                echo " (SOLUTION: cost $cost)"
-            else
-                local comfort=$(extract_comfort "$current_output")
-                echo " (comfort: ${comfort:-0.0})"
-            fi
-            
-            # Compare with best so far
-            if [[ -z "$best_output" ]] || [[ $(is_better "$current_output" "$best_output") -eq 1 ]]; then
-                best_output="$current_output"
-            fi
-        else
-            echo " (failed)"
-        fi
-    done
-    
-    # Save best result
-    if [[ -n "$best_output" ]]; then
-        echo "$best_output" > "$output_file"
-        echo "  Solutions found: $solutions_found/$runs"
-        if [[ $(reached_final "$best_output") == "true" ]]; then
-            local best_cost=$(extract_cost "$best_output")
-            echo "  Best cost: $best_cost"
-        else
-            local best_comfort=$(extract_comfort "$best_output")
-            echo "  Best comfort: ${best_comfort:-0.0}"
-        fi
-        echo "  Saved to: $output_file"
-    else
+
+    # BatchRunner runs the replicas on a thread pool, picks the best one
+    # (final point reached -> lowest cost, otherwise highest comfort) and saves it
+    if ! java -cp "$JAR_PATH" BatchRunner -f "$input_file" -n $runs -o "$output_file"; then
         echo "  No valid results obtained"
     fi
     echo
@@ -368,14 +264,18 @@ echo
 
 # For visualization mode, we don't need the JAR file
 if [[ -z "$VISUALIZE_FLAG" ]]; then
-    # Check if project.jar exists (try both locations)
+    # Use the jar built by Maven, rebuilt so it is never stale; out/project.jar is kept as a fallback
     JAR_PATH=""
-    if [[ -f "project.jar" ]]; then
-        JAR_PATH="project.jar"
+    if command -v mvn >/dev/null 2>&1; then
+        echo "Building app/target/project.jar..."
+        mvn -B -q -pl app -am package -DskipTests || exit 1
+    fi
+    if [[ -f "app/target/project.jar" ]]; then
+        JAR_PATH="app/target/project.jar"
     elif [[ -f "out/project.jar" ]]; then
         JAR_PATH="out/project.jar"
     else
-        echo "Error: project.jar not found (checked current directory and out/ folder)" >&2
+        echo "Error: project.jar not found (checked app/target/ and out/; build it with mvn package)" >&2
         exit 1
     fi
 fi
@@ -0,0 +1,332 @@
+import io.InputParser;
+import io.JsonLinesEmitter;
+import io.OutputGenerator;
+import io.OutputMode;
+import io.ResultEmitter;
+import io.StreamOutputSink;
+import model.Grid;
+import model.Individual;
+import simulation.ReplicaResult;
+import simulation.Simulator;
+import util.RandomSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several replicas of one scenario concurrently inside a single JVM and keeps
+ * the output of the best one, replacing one JVM launch per replica.
+ * Every replica gets its own random stream split from one root source, so a seeded
+ * batch gives the same results whatever the number of threads.
+ */
+public class BatchRunner {
+    private static final int DEFAULT_REPLICAS = 20;
+
+    // Sink for the output of replicas whose output is not kept
+    static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    /**
+     * The entry point for batch runs.
+     *
+     * @param args Command line arguments (-f followed by the input file and options)
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || !"-f".equals(args[0])) {
+            System.err.println("Usage: java -cp project.jar BatchRunner -f <infile> [-n replicas] [--threads t] [-o outfile] [--visualize] [--pec heap|calendar|individual] [--seed n] [--final-only | --quiet] [--jsonl file]");
+            System.exit(1);
+        }
+
+        String inputFile = args[1];
+        int replicas = DEFAULT_REPLICAS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputFile = null;
+        String jsonLinesFile = null;
+        boolean visualizationEnabled = false;
+        OutputMode outputMode = OutputMode.FULL;
+        String pecType = "heap";
+        RandomSource random = null;
+        for (int i = 2; i < args.length; i++) {
+            if ("-n".equals(args[i]) && i + 1 < args.length) {
+                replicas = Integer.parseInt(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("-o".equals(args[i]) && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if ("--visualize".equals(args[i])) {
+                visualizationEnabled = true;
+            } else if ("--jsonl".equals(args[i]) && i + 1 < args.length) {
+                jsonLinesFile = args[++i];
+            } else if ("--final-only".equals(args[i])) {
+                outputMode = OutputMode.FINAL_ONLY;
+            } else if ("--quiet".equals(args[i])) {
+                outputMode = OutputMode.QUIET;
+            } else if ("--pec".equals(args[i]) && i + 1 < args.length) {
+                pecType = args[++i];
+            } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                random = RandomSource.create(Long.parseLong(args[++i]));
+            }
+        }
+        if (random == null) {
+            random = RandomSource.create();
+        }
+        if (replicas < 1) {
+            System.err.println("At least 1 replica is needed");
+            System.exit(1);
+        }
+        if (outputFile == null) {
+            // Same place as the shell runner: SIM/maze.txt -> SIM/mazeResults.txt
+            outputFile = inputFile.replaceFirst("\\.txt$", "") + "Results.txt";
+        }
+
+        try {
+            Map<String, Object> parameters = InputParser.parseFile(inputFile);
+            String name = new File(inputFile).getName().replaceFirst("\\.txt$", "");
+            System.out.println("Running " + name + " (" + replicas + " replicas on " + threads + " threads)...");
+
+            List<ReplicaResult> results;
+            if (jsonLinesFile != null) {
+                try (OutputStream out = new FileOutputStream(jsonLinesFile)) {
+                    results = runReplicas(parameters, replicas, threads, pecType,
+                            visualizationEnabled, outputMode, new OrderedRecords(out), random);
+                }
+            } else {
+                results = runReplicas(parameters, replicas, threads, pecType,
+                        visualizationEnabled, outputMode, null, random);
+            }
+
+            ReplicaResult best = null;
+            int solutionsFound = 0;
+            for (ReplicaResult result : results) {
+                if (result.hasReachedFinal()) {
+                    solutionsFound++;
+                }
+                if (best == null || result.isBetterThan(best)) {
+                    best = result; // Ties keep the earlier replica
+                }
+            }
+
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
+                writer.write(best.getOutput());
+            }
+
+            System.out.println("  Solutions found: " + solutionsFound + "/" + replicas);
+            Individual bestIndividual = best.getBestIndividual();
+            if (bestIndividual == null) {
+                System.out.println("  No solution found");
+            } else if (best.hasReachedFinal()) {
+                System.out.println("  Best cost: " + bestIndividual.getPath().getCost());
+            } else {
+                System.out.println("  Best comfort: " + bestIndividual.getComfort());
+            }
+            System.out.println("  Saved to: " + outputFile);
+
+            if (jsonLinesFile != null) {
+                System.out.println("  Records saved to: " + jsonLinesFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading input file: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error during simulation: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs replicas of a scenario on a pool of threads.
+     * The random streams are split off in replica order before any replica starts.
+     * Only the output of the best replica so far is kept while the others run, so
+     * memory does not grow with the number of replicas.
+     *
+     * @param parameters The parsed scenario; its grid is shared read-only by all replicas
+     * @param replicas The number of replicas
+     * @param threads The number of threads
+     * @param pecType The PEC type, "heap", "calendar" or "individual"
+     * @param visualizationEnabled True to draw the grid in the output of every replica
+     * @param outputMode How much of every replica to print
+     * @param records Receives the JSON lines of every replica, tagged with its number, or null for none
+     * @param random The root random source
+     * @return The results in replica order; only the best one, the first of equally good ones, keeps its output
+     * @throws Exception If a replica fails
+     */
+    static List<ReplicaResult> runReplicas(Map<String, Object> parameters, int replicas, int threads,
+                                           String pecType, boolean visualizationEnabled,
+                                           OutputMode outputMode, OrderedRecords records,
+                                           RandomSource random) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, replicas)));
+        try {
+            BestReplica best = new BestReplica();
+            List<Future<ReplicaResult>> futures = new ArrayList<>();
+            for (int i = 0; i < replicas; i++) {
+                int replica = i;
+                RandomSource replicaRandom = random.split();
+                futures.add(pool.submit(() -> {
+                    // The lines of one replica are held until they can be written in order
+                    ByteArrayOutputStream replicaRecords = records != null ? new ByteArrayOutputStream() : null;
+                    ResultEmitter emitter = records != null
+                            ? new JsonLinesEmitter(new StreamOutputSink(replicaRecords), replica) : null;
+                    ReplicaResult result = runReplica(replica, parameters, pecType,
+                            visualizationEnabled, outputMode, true, emitter, replicaRandom);
+                    if (records != null) {
+                        records.finish(replica, replicaRecords);
+                    }
+                    return best.offer(result);
+                }));
+            }
+
+            List<ReplicaResult> results = new ArrayList<>();
+            for (Future<ReplicaResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+            results.set(best.result.getReplica(), best.result);
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one replica and measures it, keeping its output in memory if asked to.
+     *
+     * @param replica The number of the replica
+     * @param parameters The parsed scenario
+     * @param pecType The PEC type, "heap", "calendar" or "individual"
+     * @param visualizationEnabled True to draw the grid in the output
+     * @param outputMode How much of the replica to print
+     * @param keepOutput True to keep the output in the result, false to discard it
+     * @param emitter An emitter for the observations and the result, or null for none; closed at the end
+     * @param random The random source of this replica
+     * @return The result of the replica
+     * @throws UnsupportedEncodingException Never, UTF-8 is always supported
+     */
+    static ReplicaResult runReplica(int replica, Map<String, Object> parameters, String pecType,
+                                    boolean visualizationEnabled, OutputMode outputMode, boolean keepOutput,
+                                    ResultEmitter emitter, RandomSource random)
+            throws UnsupportedEncodingException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputGenerator output = new OutputGenerator(new StreamOutputSink(keepOutput ? buffer : DISCARD),
+                outputMode, visualizationEnabled);
+        if (emitter != null) {
+            output.addEmitter(emitter);
+        }
+        output.printInputParameters(parameters);
+
+        Grid grid = (Grid) parameters.get("grid");
+        Simulator simulator = new Simulator(
+                grid,
+                (int) parameters.get("initialPopulation"),
+                (int) parameters.get("maxPopulation"),
+                (double) parameters.get("comfortSensitivity"),
+                (double) parameters.get("deathMean"),
+                (double) parameters.get("moveMean"),
+                (double) parameters.get("reproductionMean"),
+                (double) parameters.get("simulationTime"),
+                Main.createPEC(pecType),
+                random
+        );
+        simulator.setOutputGenerator(output);
+
+        long start = System.nanoTime();
+        Individual bestIndividual = simulator.simulate();
+        long elapsedNanos = System.nanoTime() - start;
+        boolean reachedFinal = bestIndividual != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint());
+        output.printFinalResult(bestIndividual, reachedFinal);
+        output.close();
+
+        return new ReplicaResult(replica, bestIndividual, reachedFinal, simulator.getFirstHitTime(),
+                simulator.getPEC().getProcessedEvents(), elapsedNanos, buffer.toString("UTF-8"));
+    }
+
+    /**
+     * Writes the JSON lines of the replicas to one stream in replica order.
+     * The lines of a replica are written as soon as it and all the lower replicas
+     * are done, so only the lines of replicas that finished early are held in memory.
+     */
+    static class OrderedRecords {
+        private final OutputStream out;
+        private final Map<Integer, ByteArrayOutputStream> waiting = new HashMap<>();
+        private int next;
+
+        /**
+         * Creates a writer that starts with replica 0.
+         *
+         * @param out The stream to write the lines to; not closed by this writer
+         */
+        OrderedRecords(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Hands over the lines of a finished replica and writes out every replica
+         * that is no longer waiting for a lower one.
+         *
+         * @param replica The number of the replica
+         * @param records The lines of the replica
+         */
+        synchronized void finish(int replica, ByteArrayOutputStream records) {
+            waiting.put(replica, records);
+            try {
+                while ((records = waiting.remove(next)) != null) {
+                    records.writeTo(out);
+                    next++;
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Keeps the best result, with its output, of the replicas finished so far.
+     * Equally good results keep the one of the lowest replica, so the choice does
+     * not depend on the order in which the replicas finish.
+     */
+    private static class BestReplica {
+        private ReplicaResult result;
+
+        /**
+         * Keeps a result if it is the best so far.
+         *
+         * @param candidate A finished replica, with its output
+         * @return The result without its output
+         */
+        synchronized ReplicaResult offer(ReplicaResult candidate) {
+            if (result == null || candidate.isBetterThan(result)
+                    || (!result.isBetterThan(candidate) && candidate.getReplica() < result.getReplica())) {
+                result = candidate;
+            }
+            return candidate.withoutOutput();
+        }
+    }
+}
@@ -0,0 +1,396 @@
+import io.InputParser;
+import io.OutputGenerator;
+import io.OutputMode;
+import io.ResultEmitter;
+import io.StreamOutputSink;
+import model.Grid;
+import model.Individual;
+import simulation.GillespieSimulator;
+import simulation.SimulationMetrics;
+import simulation.Simulator;
+import util.RandomSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that the rate-based engine and the PEC engine simulate the same process.
+ * The two engines do not give the same run for a seed, so a scenario is run for a
+ * number of seeds with each of them, and for every observation the mean population
+ * size, the mean number of processed events, the mean number of events since the
+ * previous observation per individual and the share of runs whose best individual
+ * is on the final point are compared with Welch's t statistic, as are the shares
+ * of moves and of deaths among the events of every run.
+ * The check fails, with exit status 2, if any statistic is beyond the threshold.
+ */
+public class EquivalenceRunner {
+    private static final int DEFAULT_RUNS = 100;
+    private static final double DEFAULT_THRESHOLD = 4.0;
+    private static final int OBSERVATIONS = 21; // Observations 0 to 20
+
+    /**
+     * The entry point for equivalence checks.
+     *
+     * @param args Command line arguments (-f followed by the input file and options)
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || !"-f".equals(args[0])) {
+            System.err.println("Usage: java -cp project.jar EquivalenceRunner -f <infile> [-n runs] [--threads t] [--pec heap|calendar|individual] [--threshold t] [--seed n]");
+            System.exit(1);
+        }
+
+        String inputFile = args[1];
+        int runs = DEFAULT_RUNS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String pecType = "heap";
+        double threshold = DEFAULT_THRESHOLD;
+        RandomSource random = null;
+        for (int i = 2; i + 1 < args.length; i++) {
+            if ("-n".equals(args[i])) {
+                runs = Integer.parseInt(args[++i]);
+            } else if ("--threads".equals(args[i])) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--pec".equals(args[i])) {
+                pecType = args[++i];
+            } else if ("--threshold".equals(args[i])) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("--seed".equals(args[i])) {
+                random = RandomSource.create(Long.parseLong(args[++i]));
+            }
+        }
+        if (random == null) {
+            random = RandomSource.create();
+        }
+        if (runs < 2) {
+            System.err.println("At least 2 runs per engine are needed");
+            System.exit(1);
+        }
+
+        try {
+            Map<String, Object> parameters = InputParser.parseFile(inputFile);
+            String name = new File(inputFile).getName().replaceFirst("\\.txt$", "");
+            System.out.println("Comparing engines on " + name + " (" + runs + " runs each on " + threads + " threads)...");
+
+            double worst = compareEngines(parameters, runs, threads, pecType, random, System.out);
+
+            boolean equivalent = worst < threshold; // NaN and infinity both fail
+            System.out.println(String.format("  Largest |t|: %.2f (threshold %.2f)", worst, threshold));
+            System.out.println(equivalent ? "  Engines agree" : "  Engines differ");
+            if (!equivalent) {
+                System.exit(2);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading input file: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error during simulation: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a scenario with both engines and compares their observations.
+     *
+     * @param parameters The parsed scenario; its grid is shared read-only by all runs
+     * @param runs The number of runs of each engine, at least 2
+     * @param threads The number of threads
+     * @param pecType The PEC type of the PEC engine
+     * @param random The root random source
+     * @param table Where the statistics of every observation are printed, or null for nowhere
+     * @return The largest |t| over all observations and statistics, NaN or infinite if
+     *         the engines give constant but different values
+     * @throws Exception If a run fails
+     */
+    static double compareEngines(Map<String, Object> parameters, int runs, int threads, String pecType,
+                                 RandomSource random, PrintStream table) throws Exception {
+        List<ObservationRecorder> pecRuns = new ArrayList<>();
+        List<ObservationRecorder> gillespieRuns = new ArrayList<>();
+        runAll(parameters, runs, threads, pecType, random, pecRuns, gillespieRuns);
+
+        double worst = 0.0;
+        if (table != null) {
+            table.println(String.format("%4s %12s %12s %7s %14s %14s %7s %8s %8s %7s %6s %6s %7s",
+                    "obs", "size pec", "size rate", "t", "events pec", "events rate", "t",
+                    "per ind", "per ind", "t", "hit", "hit", "t"));
+        }
+        for (int observation = 1; observation < OBSERVATIONS; observation++) {
+            double[] pecSizes = new double[runs];
+            double[] gillespieSizes = new double[runs];
+            double[] pecEvents = new double[runs];
+            double[] gillespieEvents = new double[runs];
+            double[] pecHits = new double[runs];
+            double[] gillespieHits = new double[runs];
+            double[] pecRates = new double[runs];
+            double[] gillespieRates = new double[runs];
+            for (int i = 0; i < runs; i++) {
+                ObservationRecorder pec = pecRuns.get(i);
+                ObservationRecorder gillespie = gillespieRuns.get(i);
+                pecSizes[i] = pec.populationSizes[observation];
+                gillespieSizes[i] = gillespie.populationSizes[observation];
+                pecEvents[i] = pec.events[observation];
+                gillespieEvents[i] = gillespie.events[observation];
+                pecHits[i] = pec.hits[observation] ? 1.0 : 0.0;
+                gillespieHits[i] = gillespie.hits[observation] ? 1.0 : 0.0;
+                pecRates[i] = pec.getEventsPerIndividual(observation);
+                gillespieRates[i] = gillespie.getEventsPerIndividual(observation);
+            }
+
+            double sizeT = welchT(pecSizes, gillespieSizes);
+            double eventsT = welchT(pecEvents, gillespieEvents);
+            double hitT = welchT(pecHits, gillespieHits);
+            double rateT = welchT(pecRates, gillespieRates);
+            worst = Math.max(worst, Math.max(Math.max(Math.abs(sizeT), Math.abs(eventsT)),
+                    Math.max(Math.abs(hitT), Math.abs(rateT))));
+            if (table != null) {
+                table.println(String.format(
+                        "%4d %12.2f %12.2f %7.2f %14.1f %14.1f %7.2f %8.3f %8.3f %7.2f %6.2f %6.2f %7.2f",
+                        observation, mean(pecSizes), mean(gillespieSizes), sizeT,
+                        mean(pecEvents), mean(gillespieEvents), eventsT,
+                        mean(pecRates), mean(gillespieRates), rateT,
+                        mean(pecHits), mean(gillespieHits), hitT));
+            }
+        }
+
+        // The shares of the event types follow the ratios of the rates, whatever the population size
+        double[] pecMoves = new double[runs];
+        double[] gillespieMoves = new double[runs];
+        double[] pecDeaths = new double[runs];
+        double[] gillespieDeaths = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            pecMoves[i] = pecRuns.get(i).moveShare;
+            gillespieMoves[i] = gillespieRuns.get(i).moveShare;
+            pecDeaths[i] = pecRuns.get(i).deathShare;
+            gillespieDeaths[i] = gillespieRuns.get(i).deathShare;
+        }
+        double moveT = welchT(pecMoves, gillespieMoves);
+        double deathT = welchT(pecDeaths, gillespieDeaths);
+        worst = Math.max(worst, Math.max(Math.abs(moveT), Math.abs(deathT)));
+        if (table != null) {
+            table.println(String.format("  Move share:  %.5f %.5f t=%.2f", mean(pecMoves), mean(gillespieMoves), moveT));
+            table.println(String.format("  Death share: %.5f %.5f t=%.2f", mean(pecDeaths), mean(gillespieDeaths),
+                    deathT));
+        }
+        return worst;
+    }
+
+    /**
+     * Runs a scenario with both engines on a pool of threads.
+     * The random streams are split off in run order, all PEC runs first, before any run starts.
+     *
+     * @param parameters The parsed scenario; its grid is shared read-only by all runs
+     * @param runs The number of runs of each engine
+     * @param threads The number of threads
+     * @param pecType The PEC type of the PEC engine
+     * @param random The root random source
+     * @param pecRuns Filled in with the observations of the PEC runs, in run order
+     * @param gillespieRuns Filled in with the observations of the rate-based runs, in run order
+     * @throws Exception If a run fails
+     */
+    private static void runAll(Map<String, Object> parameters, int runs, int threads, String pecType,
+                               RandomSource random, List<ObservationRecorder> pecRuns,
+                               List<ObservationRecorder> gillespieRuns) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, 2 * runs)));
+        try {
+            List<Future<ObservationRecorder>> futures = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                RandomSource runRandom = random.split();
+                futures.add(pool.submit(() -> runPEC(parameters, pecType, runRandom)));
+            }
+            for (int i = 0; i < runs; i++) {
+                RandomSource runRandom = random.split();
+                futures.add(pool.submit(() -> runGillespie(parameters, runRandom)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                ObservationRecorder recorder;
+                try {
+                    recorder = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+                (i < runs ? pecRuns : gillespieRuns).add(recorder);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the scenario once with the PEC engine.
+     *
+     * @param parameters The parsed scenario
+     * @param pecType The PEC type
+     * @param random The random source of the run
+     * @return The observations of the run
+     */
+    private static ObservationRecorder runPEC(Map<String, Object> parameters, String pecType, RandomSource random) {
+        ObservationRecorder recorder = new ObservationRecorder();
+        OutputGenerator output = new OutputGenerator(new StreamOutputSink(BatchRunner.DISCARD),
+                OutputMode.NONE, false);
+        output.addEmitter(recorder);
+
+        Grid grid = (Grid) parameters.get("grid");
+        Simulator simulator = new Simulator(
+                grid,
+                (int) parameters.get("initialPopulation"),
+                (int) parameters.get("maxPopulation"),
+                (double) parameters.get("comfortSensitivity"),
+                (double) parameters.get("deathMean"),
+                (double) parameters.get("moveMean"),
+                (double) parameters.get("reproductionMean"),
+                (double) parameters.get("simulationTime"),
+                Main.createPEC(pecType),
+                random
+        );
+        simulator.setOutputGenerator(output);
+        Individual bestIndividual = simulator.simulate();
+        output.printFinalResult(bestIndividual,
+                bestIndividual != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint()));
+        output.close();
+
+        SimulationMetrics metrics = simulator.getMetrics();
+        recorder.setEventCounts(metrics.getMoveEvents(), metrics.getReproductionEvents(), metrics.getDeathEvents());
+        return recorder;
+    }
+
+    /**
+     * Runs the scenario once with the rate-based engine.
+     *
+     * @param parameters The parsed scenario
+     * @param random The random source of the run
+     * @return The observations of the run
+     */
+    private static ObservationRecorder runGillespie(Map<String, Object> parameters, RandomSource random) {
+        ObservationRecorder recorder = new ObservationRecorder();
+        OutputGenerator output = new OutputGenerator(new StreamOutputSink(BatchRunner.DISCARD),
+                OutputMode.NONE, false);
+        output.addEmitter(recorder);
+
+        Grid grid = (Grid) parameters.get("grid");
+        GillespieSimulator simulator = Main.createGillespieSimulator(parameters, random);
+        simulator.setOutputGenerator(output);
+        Individual bestIndividual = simulator.simulate();
+        output.printFinalResult(bestIndividual,
+                bestIndividual != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint()));
+        output.close();
+
+        recorder.setEventCounts(simulator.getMoveEvents(), simulator.getReproductionEvents(),
+                simulator.getDeathEvents());
+        return recorder;
+    }
+
+    /**
+     * Computes Welch's t statistic for the difference of the means of two samples.
+     *
+     * @param a The first sample
+     * @param b The second sample
+     * @return The statistic, 0 if both samples are constant and equal, or infinite
+     *         if they are constant and different
+     */
+    private static double welchT(double[] a, double[] b) {
+        double difference = mean(a) - mean(b);
+        double standardError = Math.sqrt(variance(a) / a.length + variance(b) / b.length);
+        if (standardError == 0.0) {
+            return difference == 0.0 ? 0.0 : Math.copySign(Double.POSITIVE_INFINITY, difference);
+        }
+        return difference / standardError;
+    }
+
+    /**
+     * Gets the mean of a sample.
+     *
+     * @param values The sample
+     * @return The mean
+     */
+    private static double mean(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Gets the unbiased variance of a sample.
+     *
+     * @param values The sample, of at least 2 values
+     * @return The variance
+     */
+    private static double variance(double[] values) {
+        double mean = mean(values);
+        double sum = 0.0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / (values.length - 1);
+    }
+
+    /**
+     * Keeps the observations of one run.
+     */
+    private static class ObservationRecorder implements ResultEmitter {
+        private final int[] populationSizes = new int[OBSERVATIONS];
+        private final long[] events = new long[OBSERVATIONS];
+        private final boolean[] hits = new boolean[OBSERVATIONS];
+        private double moveShare; // Share of the events of the run that were moves
+        private double deathShare; // Share of the events of the run that were deaths
+
+        @Override
+        public void emitObservation(int observationNumber, double time, long events, int populationSize,
+                                    boolean finalPointHit, Individual bestIndividual) {
+            if (observationNumber < OBSERVATIONS) {
+                this.populationSizes[observationNumber] = populationSize;
+                this.events[observationNumber] = events;
+                this.hits[observationNumber] = finalPointHit;
+            }
+        }
+
+        /**
+         * Gets the number of events since the previous observation per individual
+         * alive at it, which follows the event rates of the individuals much more
+         * closely than the raw counts, whose spread is dominated by the population size.
+         *
+         * @param observation The observation, at least 1
+         * @return The events per individual, or 0 if the population was empty
+         */
+        double getEventsPerIndividual(int observation) {
+            int previousSize = populationSizes[observation - 1];
+            return previousSize == 0 ? 0.0 : (double) (events[observation] - events[observation - 1]) / previousSize;
+        }
+
+        /**
+         * Sets the number of events of every type the run processed.
+         *
+         * @param moves The number of moves
+         * @param reproductions The number of reproductions
+         * @param deaths The number of deaths, not counting deaths in epidemics
+         */
+        void setEventCounts(long moves, long reproductions, long deaths) {
+            double total = Math.max(1, moves + reproductions + deaths);
+            moveShare = moves / total;
+            deathShare = deaths / total;
+        }
+
+        @Override
+        public void emitFinalResult(boolean finalPointHit, Individual bestIndividual) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,11 +1,28 @@
+import io.AsyncOutputSink;
+import io.BinaryEmitter;
 import io.InputParser;
+import io.JsonLinesEmitter;
 import io.OutputGenerator;
+import io.OutputMode;
+import io.OutputSink;
+import io.StreamOutputSink;
 import model.Grid;
 import model.Individual;
+import simulation.CalendarPEC;
+import simulation.CheckpointWriter;
+import simulation.EventProfiler;
+import simulation.FlightRecording;
+import simulation.GillespieSimulator;
+import simulation.HeapPEC;
+import simulation.IndividualPEC;
 import simulation.PEC;
+import simulation.PrometheusExporter;
 import simulation.Simulator;
+import util.RandomSource;
 
+import javax.management.JMException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -13,6 +30,8 @@ import java.util.Map;
  * Handles command line arguments and initializes the simulation.
  */
 public class Main {
+    private static final double DEFAULT_CHECKPOINT_INTERVAL = 60.0;
+
     /**
      * The entry point for the application.
      * Parses command-line arguments and runs the simulation.
@@ -23,29 +42,70 @@ public class Main {
         try {
             if (args.length < 2) {
                 System.err.println("Error: Insufficient arguments.");
-                System.err.println("Usage: java -jar project.jar -r n m xi yi xf yf nscz nobs τ ν νmax k μ δ ρ [--visualize]");
-                System.err.println("   or: java -jar project.jar -f <infile> [--visualize]");
+                System.err.println("Usage: java -jar project.jar -r n m xi yi xf yf nscz nobs τ ν νmax k μ δ ρ [--visualize] [--pec heap|calendar|individual] [--seed n]");
+                System.err.println("   or: java -jar project.jar -f <infile> [--visualize] [--pec heap|calendar|individual] [--seed n]");
+                System.err.println("Output: [--final-only | --quiet] [--async] [--format text|jsonl|binary]");
+                System.err.println("Metrics: [--jmx] [--metrics-file file.prom] [--profile file.jfr]");
+                System.err.println("Checkpoints: [--checkpoint file [--checkpoint-interval seconds]] [--resume file]");
+                System.err.println("Engine: [--engine pec|gillespie] (gillespie draws events from their rates, without a PEC)");
                 System.exit(1);
             }
 
             String option = args[0];
             Map<String, Object> parameters;
 
-            // Check for visualization flag
+            // Check for visualization flag, output options and PEC type
             boolean visualizationEnabled = false;
-            for (String arg : args) {
-                if ("--visualize".equals(arg)) {
+            OutputMode outputMode = OutputMode.FULL;
+            boolean asyncOutput = false;
+            String format = "text";
+            boolean jmxEnabled = false;
+            String metricsFile = null;
+            String profileFile = null;
+            String checkpointFile = null;
+            double checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+            String resumeFile = null;
+            String pecType = "heap";
+            String engine = "pec";
+            RandomSource random = null;
+            for (int i = 0; i < args.length; i++) {
+                if ("--visualize".equals(args[i])) {
                     visualizationEnabled = true;
-                    break;
+                } else if ("--final-only".equals(args[i])) {
+                    outputMode = OutputMode.FINAL_ONLY;
+                } else if ("--quiet".equals(args[i])) {
+                    outputMode = OutputMode.QUIET;
+                } else if ("--async".equals(args[i])) {
+                    asyncOutput = true;
+                } else if ("--format".equals(args[i]) && i + 1 < args.length) {
+                    format = args[++i];
+                } else if ("--jmx".equals(args[i])) {
+                    jmxEnabled = true;
+                } else if ("--metrics-file".equals(args[i]) && i + 1 < args.length) {
+                    metricsFile = args[++i];
+                } else if ("--profile".equals(args[i]) && i + 1 < args.length) {
+                    profileFile = args[++i];
+                } else if ("--checkpoint".equals(args[i]) && i + 1 < args.length) {
+                    checkpointFile = args[++i];
+                } else if ("--checkpoint-interval".equals(args[i]) && i + 1 < args.length) {
+                    checkpointInterval = Double.parseDouble(args[++i]);
+                } else if ("--resume".equals(args[i]) && i + 1 < args.length) {
+                    resumeFile = args[++i];
+                } else if ("--pec".equals(args[i]) && i + 1 < args.length) {
+                    pecType = args[++i];
+                } else if ("--engine".equals(args[i]) && i + 1 < args.length) {
+                    engine = args[++i];
+                } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                    random = RandomSource.create(Long.parseLong(args[++i]));
                 }
             }
-
-            // Set visualization flag
-            OutputGenerator.setPathVisualizationEnabled(visualizationEnabled);
+            if (random == null) {
+                random = RandomSource.create();
+            }
 
             if ("-r".equals(option)) {
                 // Random generation mode
-                parameters = InputParser.parseRandomParameters(args);
+                parameters = InputParser.parseRandomParameters(args, random.split());
             } else if ("-f".equals(option)) {
                 // File input mode
                 String filePath = args[1];
@@ -56,29 +116,41 @@ public class Main {
                 return;
             }
 
-            // Print input parameters
-            OutputGenerator.printInputParameters(parameters);
-
-            // Create grid
-            Grid grid = (Grid) parameters.get("grid");
-
-            // Initialize simulator
-            Simulator simulator = new Simulator(
-                    grid,
-                    (int) parameters.get("initialPopulation"),
-                    (int) parameters.get("maxPopulation"),
-                    (double) parameters.get("comfortSensitivity"),
-                    (double) parameters.get("deathMean"),
-                    (double) parameters.get("moveMean"),
-                    (double) parameters.get("reproductionMean"),
-                    (double) parameters.get("simulationTime")
-            );
-
-            // Run simulation
-            Individual bestIndividual = simulator.simulate();
-
-            // Print final result
-            OutputGenerator.printFinalResult(bestIndividual);
+            OutputSink sink = new StreamOutputSink(System.out);
+            if (asyncOutput) {
+                sink = new AsyncOutputSink(sink);
+            }
+            OutputGenerator output;
+            if ("text".equals(format)) {
+                output = new OutputGenerator(sink, outputMode, visualizationEnabled);
+            } else if ("jsonl".equals(format)) {
+                // One JSON object per observation and for the result, instead of the text
+                output = new OutputGenerator(sink, OutputMode.NONE, false);
+                output.addEmitter(new JsonLinesEmitter(sink));
+            } else if ("binary".equals(format)) {
+                output = new OutputGenerator(sink, OutputMode.NONE, false);
+                output.addEmitter(new BinaryEmitter(System.out));
+            } else {
+                throw new IllegalArgumentException("Unknown output format: " + format + " (expected text, jsonl or binary)");
+            }
+            try {
+                if ("gillespie".equals(engine)) {
+                    if (jmxEnabled || metricsFile != null || profileFile != null
+                            || checkpointFile != null || resumeFile != null) {
+                        throw new IllegalArgumentException("Metrics, profiling and checkpoints need the PEC engine");
+                    }
+                    runGillespie(parameters, output, random.split());
+                } else if ("pec".equals(engine)) {
+                    CheckpointWriter checkpointWriter = checkpointFile != null
+                            ? new CheckpointWriter(checkpointFile, checkpointInterval) : null;
+                    runSimulation(parameters, output, pecType, jmxEnabled, metricsFile, profileFile,
+                            checkpointWriter, resumeFile, random.split());
+                } else {
+                    throw new IllegalArgumentException("Unknown engine: " + engine + " (expected pec or gillespie)");
+                }
+            } finally {
+                output.close();
+            }
 
         } catch (IOException e) {
             System.err.println("Error reading input file: " + e.getMessage());
@@ -89,4 +161,153 @@ public class Main {
             System.exit(1);
         }
     }
+
+    /**
+     * Prints the input parameters, runs the simulation and prints its result.
+     *
+     * @param parameters The parsed scenario
+     * @param output The output generator
+     * @param pecType The PEC type, "heap", "calendar" or "individual"
+     * @param jmxEnabled True to expose the metrics of the simulation as an MBean
+     * @param metricsFile The file to write the metrics to at every observation, or null for none
+     * @param profileFile The file to write a flight recording to, or null to not profile the run;
+     *                    a latency profile of the event loop is then also printed to standard error
+     * @param checkpointWriter The writer of periodic checkpoints, or null for none; closed at the end
+     * @param resumeFile The checkpoint to continue from, or null to start afresh; the scenario
+     *                   and the seed must be those of the checkpointed run
+     * @param random The random source of the simulation
+     * @throws JMException If the metrics cannot be registered as an MBean
+     * @throws IOException If the checkpoint to resume from cannot be read
+     */
+    private static void runSimulation(Map<String, Object> parameters, OutputGenerator output,
+                                      String pecType, boolean jmxEnabled, String metricsFile,
+                                      String profileFile, CheckpointWriter checkpointWriter,
+                                      String resumeFile, RandomSource random) throws JMException, IOException {
+        // Print input parameters
+        output.printInputParameters(parameters);
+
+        // Create grid
+        Grid grid = (Grid) parameters.get("grid");
+
+        // Initialize simulator
+        Simulator simulator = new Simulator(
+                grid,
+                (int) parameters.get("initialPopulation"),
+                (int) parameters.get("maxPopulation"),
+                (double) parameters.get("comfortSensitivity"),
+                (double) parameters.get("deathMean"),
+                (double) parameters.get("moveMean"),
+                (double) parameters.get("reproductionMean"),
+                (double) parameters.get("simulationTime"),
+                createPEC(pecType),
+                random
+        );
+
+        simulator.setOutputGenerator(output);
+        if (resumeFile != null) {
+            try (InputStream in = CheckpointWriter.open(resumeFile)) {
+                simulator.resume(in);
+            }
+        }
+        simulator.setCheckpointWriter(checkpointWriter);
+        if (jmxEnabled) {
+            simulator.getMetrics().register("pathfinder:type=SimulationMetrics");
+        }
+        if (metricsFile != null) {
+            simulator.setMetricsListener(new PrometheusExporter(metricsFile)::write);
+        }
+
+        EventProfiler profiler = null;
+        FlightRecording recording = null;
+        if (profileFile != null) {
+            profiler = new EventProfiler();
+            simulator.setProfiler(profiler);
+            try {
+                recording = new FlightRecording("pathfinder", profileFile);
+            } catch (JMException e) {
+                System.err.println("Warning: Flight Recorder is not available (" + e.getMessage() + ")");
+            }
+        }
+
+        // Run simulation
+        Individual bestIndividual;
+        try {
+            bestIndividual = simulator.simulate();
+        } finally {
+            if (checkpointWriter != null) {
+                checkpointWriter.close();
+            }
+        }
+
+        if (recording != null) {
+            recording.stop();
+            System.err.println("Flight recording saved to: " + recording.getFile());
+        }
+        if (profiler != null) {
+            profiler.printReport(System.err);
+        }
+
+        // Print final result
+        output.printFinalResult(bestIndividual,
+                bestIndividual != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint()));
+    }
+
+    /**
+     * Prints the input parameters, runs the simulation with the rate-based engine
+     * and prints its result.
+     *
+     * @param parameters The parsed scenario
+     * @param output The output generator
+     * @param random The random source of the simulation
+     */
+    private static void runGillespie(Map<String, Object> parameters, OutputGenerator output,
+                                     RandomSource random) {
+        output.printInputParameters(parameters);
+
+        Grid grid = (Grid) parameters.get("grid");
+        GillespieSimulator simulator = createGillespieSimulator(parameters, random);
+        simulator.setOutputGenerator(output);
+        Individual bestIndividual = simulator.simulate();
+
+        output.printFinalResult(bestIndividual,
+                bestIndividual != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint()));
+    }
+
+    /**
+     * Creates a rate-based simulator for a parsed scenario.
+     *
+     * @param parameters The parsed scenario
+     * @param random The random source of the simulation
+     * @return The simulator
+     */
+    static GillespieSimulator createGillespieSimulator(Map<String, Object> parameters, RandomSource random) {
+        return new GillespieSimulator(
+                (Grid) parameters.get("grid"),
+                (int) parameters.get("initialPopulation"),
+                (int) parameters.get("maxPopulation"),
+                (double) parameters.get("comfortSensitivity"),
+                (double) parameters.get("deathMean"),
+                (double) parameters.get("moveMean"),
+                (double) parameters.get("reproductionMean"),
+                (double) parameters.get("simulationTime"),
+                random
+        );
+    }
+
+    /**
+     * Creates the pending event container selected on the command line.
+     *
+     * @param type The PEC type, "heap", "calendar" or "individual"
+     * @return A new empty PEC
+     */
+    static PEC createPEC(String type) {
+        if ("heap".equals(type)) {
+            return new HeapPEC();
+        } else if ("calendar".equals(type)) {
+            return new CalendarPEC();
+        } else if ("individual".equals(type)) {
+            return new IndividualPEC();
+        }
+        throw new IllegalArgumentException("Unknown PEC type: " + type + " (expected heap, calendar or individual)");
+    }
 }
\ No newline at end of file
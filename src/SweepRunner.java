@@ -0,0 +1,337 @@
+import io.InputParser;
+import io.OutputMode;
+import simulation.ReplicaResult;
+import util.RandomSource;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps the comfort sensitivity, the event means and the maximum population of a
+ * scenario. Every combination of the given values is run for a number of replicas
+ * on a pool of threads, all sharing the grid parsed once from the scenario, and the
+ * aggregates of each combination are appended to a CSV file as soon as its last
+ * replica finishes.
+ * Values are given as comma-separated lists whose items are single values or
+ * inclusive ranges start:end:step, e.g. "1,2,5:9:2" for 1, 2, 5, 7 and 9.
+ * Parameters without values keep the value from the scenario.
+ */
+public class SweepRunner {
+    private static final int DEFAULT_REPLICAS = 10;
+    private static final String CSV_HEADER = "configuration,k,deathMean,moveMean,reproductionMean,maxPopulation,"
+            + "replicas,successRate,bestCost,meanTimeToFirstHit,eventsPerSecond";
+
+    /**
+     * The entry point for parameter sweeps.
+     *
+     * @param args Command line arguments (-f followed by the input file and options)
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || !"-f".equals(args[0])) {
+            exitWithUsage(null);
+        }
+
+        String inputFile = args[1];
+        String kValues = null;
+        String deathValues = null;
+        String moveValues = null;
+        String reproductionValues = null;
+        String maxPopulationValues = null;
+        int replicas = DEFAULT_REPLICAS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputFile = inputFile.replaceFirst("\\.txt$", "") + "Sweep.csv";
+        String pecType = "heap";
+        RandomSource random = null;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                if ("--k".equals(args[i])) {
+                    kValues = optionValue(args, ++i);
+                } else if ("--death".equals(args[i])) {
+                    deathValues = optionValue(args, ++i);
+                } else if ("--move".equals(args[i])) {
+                    moveValues = optionValue(args, ++i);
+                } else if ("--reproduction".equals(args[i])) {
+                    reproductionValues = optionValue(args, ++i);
+                } else if ("--max-population".equals(args[i])) {
+                    maxPopulationValues = optionValue(args, ++i);
+                } else if ("-n".equals(args[i])) {
+                    replicas = Integer.parseInt(optionValue(args, ++i));
+                } else if ("--threads".equals(args[i])) {
+                    threads = Integer.parseInt(optionValue(args, ++i));
+                } else if ("-o".equals(args[i])) {
+                    outputFile = optionValue(args, ++i);
+                } else if ("--pec".equals(args[i])) {
+                    pecType = optionValue(args, ++i);
+                } else if ("--seed".equals(args[i])) {
+                    random = RandomSource.create(Long.parseLong(optionValue(args, ++i)));
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (replicas < 1) {
+                throw new IllegalArgumentException("At least 1 replica is needed");
+            }
+
+            // Check the value lists before the scenario is read; the defaults do not matter here
+            valuesOf(kValues, 1);
+            valuesOf(deathValues, 1);
+            valuesOf(moveValues, 1);
+            valuesOf(reproductionValues, 1);
+            for (double maxPopulation : valuesOf(maxPopulationValues, 1)) {
+                if (maxPopulation != Math.rint(maxPopulation)) {
+                    throw new IllegalArgumentException("Maximum population values must be whole numbers: " + maxPopulation);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            exitWithUsage(e.getMessage());
+        }
+        if (random == null) {
+            random = RandomSource.create();
+        }
+
+        try {
+            Map<String, Object> parameters = InputParser.parseFile(inputFile);
+
+            // Every combination of the swept values, in a fixed order
+            List<Map<String, Object>> configurations = new ArrayList<>();
+            for (double k : valuesOf(kValues, (double) parameters.get("comfortSensitivity"))) {
+                for (double deathMean : valuesOf(deathValues, (double) parameters.get("deathMean"))) {
+                    for (double moveMean : valuesOf(moveValues, (double) parameters.get("moveMean"))) {
+                        for (double reproductionMean : valuesOf(reproductionValues, (double) parameters.get("reproductionMean"))) {
+                            for (double maxPopulation : valuesOf(maxPopulationValues, (int) parameters.get("maxPopulation"))) {
+                                Map<String, Object> configuration = new HashMap<>(parameters); // Shares the grid
+                                configuration.put("comfortSensitivity", k);
+                                configuration.put("deathMean", deathMean);
+                                configuration.put("moveMean", moveMean);
+                                configuration.put("reproductionMean", reproductionMean);
+                                configuration.put("maxPopulation", (int) maxPopulation);
+                                validate(configuration);
+                                configurations.add(configuration);
+                            }
+                        }
+                    }
+                }
+            }
+
+            System.out.println("Sweeping " + configurations.size() + " configurations x " + replicas
+                    + " replicas on " + threads + " threads...");
+            try (PrintWriter csv = new PrintWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+                csv.println(CSV_HEADER);
+                csv.flush();
+                sweep(configurations, replicas, threads, pecType, random, csv);
+            }
+            System.out.println("  Saved to: " + outputFile);
+        } catch (IOException e) {
+            System.err.println("Error reading input file: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error during sweep: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints an error, if any, and the usage, then exits with status 1.
+     *
+     * @param error The error, or null for none
+     */
+    private static void exitWithUsage(String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: java -cp project.jar SweepRunner -f <infile> [--k values] [--death values] [--move values]");
+        System.err.println("       [--reproduction values] [--max-population values] [-n replicas] [--threads t] [-o outfile.csv]");
+        System.err.println("       [--pec heap|calendar|individual] [--seed n]");
+        System.err.println("Values: comma-separated numbers or ranges start:end:step, e.g. 1,2,5:9:2");
+        System.exit(1);
+    }
+
+    /**
+     * Gets the value of an option.
+     *
+     * @param args Command line arguments
+     * @param i The index of the value, just after the option
+     * @return The value
+     * @throws IllegalArgumentException If the option is the last argument
+     */
+    private static String optionValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Runs all replicas of all configurations on one pool of threads, writing the
+     * aggregates of each configuration as soon as it is complete.
+     * The random streams are split off in configuration and replica order before
+     * any replica starts, so a seeded sweep gives the same rows on any number of threads.
+     *
+     * @param configurations The scenario parameters of every configuration
+     * @param replicas The number of replicas per configuration
+     * @param threads The number of threads
+     * @param pecType The PEC type, "heap", "calendar" or "individual"
+     * @param random The root random source
+     * @param csv The CSV output, which already holds the header
+     * @throws Exception If a replica fails
+     */
+    private static void sweep(List<Map<String, Object>> configurations, int replicas, int threads,
+                              String pecType, RandomSource random, PrintWriter csv) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < configurations.size(); c++) {
+                Map<String, Object> configuration = configurations.get(c);
+                ConfigurationStats stats = new ConfigurationStats(c, configuration, replicas);
+                for (int r = 0; r < replicas; r++) {
+                    int replica = r;
+                    RandomSource replicaRandom = random.split();
+                    futures.add(pool.submit(() -> {
+                        ReplicaResult result = BatchRunner.runReplica(replica, configuration, pecType,
+                                false, OutputMode.QUIET, false, null, replicaRandom);
+                        if (stats.add(result)) {
+                            synchronized (csv) {
+                                csv.println(stats.toCsvRow());
+                                csv.flush();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses a list of values and ranges, or returns the default if there is none.
+     *
+     * @param spec The values, e.g. "1,2,5:9:2", or null
+     * @param defaultValue The value to use if no values are given
+     * @return The values in the given order
+     */
+    private static List<Double> valuesOf(String spec, double defaultValue) {
+        List<Double> values = new ArrayList<>();
+        if (spec == null) {
+            values.add(defaultValue);
+            return values;
+        }
+
+        for (String item : spec.split(",")) {
+            String[] range = item.trim().split(":");
+            if (range.length == 1) {
+                values.add(Double.parseDouble(range[0]));
+            } else if (range.length == 3) {
+                double start = Double.parseDouble(range[0]);
+                double end = Double.parseDouble(range[1]);
+                double step = Double.parseDouble(range[2]);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Range step must be positive: " + item);
+                }
+                // Count the steps instead of accumulating, so rounding cannot drop the end
+                long steps = (long) Math.floor((end - start) / step + 1e-9);
+                for (long i = 0; i <= steps; i++) {
+                    values.add(start + i * step);
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid value or range: " + item);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Checks that the swept parameters of a configuration are valid.
+     *
+     * @param configuration The scenario parameters
+     */
+    private static void validate(Map<String, Object> configuration) {
+        if ((double) configuration.get("comfortSensitivity") <= 0 || (double) configuration.get("deathMean") <= 0
+                || (double) configuration.get("moveMean") <= 0 || (double) configuration.get("reproductionMean") <= 0) {
+            throw new IllegalArgumentException("Event mean values and comfort sensitivity must be positive");
+        }
+        if ((int) configuration.get("maxPopulation") < (int) configuration.get("initialPopulation")) {
+            throw new IllegalArgumentException("Maximum population must not be below the initial population");
+        }
+    }
+
+    /**
+     * Aggregates of the replicas of one configuration, filled in by the worker threads.
+     */
+    private static final class ConfigurationStats {
+        private final int index;
+        private final Map<String, Object> configuration;
+        private final int replicas;
+        private int completed;
+        private int hits;
+        private int bestCost = Integer.MAX_VALUE;
+        private final double[] firstHitTimes; // By replica, summed in order so the mean does not depend on timing
+        private long events;
+        private long elapsedNanos;
+
+        private ConfigurationStats(int index, Map<String, Object> configuration, int replicas) {
+            this.index = index;
+            this.configuration = configuration;
+            this.replicas = replicas;
+            this.firstHitTimes = new double[replicas];
+        }
+
+        /**
+         * Adds the result of one replica.
+         *
+         * @param result The result
+         * @return True if this was the last replica of the configuration
+         */
+        private synchronized boolean add(ReplicaResult result) {
+            if (result.hasReachedFinal()) {
+                hits++;
+                bestCost = Math.min(bestCost, result.getBestIndividual().getPath().getCost());
+                firstHitTimes[result.getReplica()] = result.getFirstHitTime();
+            }
+            events += result.getProcessedEvents();
+            elapsedNanos += result.getElapsedNanos();
+            return ++completed == replicas;
+        }
+
+        private synchronized String toCsvRow() {
+            double firstHitTimeSum = 0;
+            for (double firstHitTime : firstHitTimes) {
+                firstHitTimeSum += firstHitTime; // Replicas that missed the final point hold 0
+            }
+            return index + ","
+                    + configuration.get("comfortSensitivity") + ","
+                    + configuration.get("deathMean") + ","
+                    + configuration.get("moveMean") + ","
+                    + configuration.get("reproductionMean") + ","
+                    + configuration.get("maxPopulation") + ","
+                    + replicas + ","
+                    + (double) hits / replicas + ","
+                    + (hits > 0 ? String.valueOf(bestCost) : "") + ","
+                    + (hits > 0 ? String.valueOf(firstHitTimeSum / hits) : "") + ","
+                    + (elapsedNanos > 0 ? String.valueOf((long) (events / (elapsedNanos / 1e9))) : "");
+        }
+    }
+}
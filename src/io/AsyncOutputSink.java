@@ -0,0 +1,143 @@
+package io;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output sink that hands the text to a writer thread through a bounded queue,
+ * so the simulation does not wait for the terminal or the disk. When the queue
+ * is full the simulation waits, which bounds the memory held by pending text.
+ * Meant to be written to by one thread; an error of the writer thread is thrown
+ * by the next call.
+ */
+public class AsyncOutputSink implements OutputSink {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final String END = new String(); // Compared by identity, never written
+
+    private final OutputSink target;
+    private final BlockingQueue<String> queue;
+    private final Thread writerThread;
+    private final Object lock = new Object();
+    private long queued; // Pieces of text put in the queue
+    private long written; // Pieces of text taken from the queue and handled, guarded by lock
+    private volatile RuntimeException failure;
+    private boolean closed;
+
+    /**
+     * Creates an asynchronous sink with the default queue capacity.
+     *
+     * @param target The sink the writer thread writes to
+     */
+    public AsyncOutputSink(OutputSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an asynchronous sink and starts its writer thread.
+     *
+     * @param target The sink the writer thread writes to
+     * @param capacity The number of pieces of text that can wait in the queue
+     */
+    public AsyncOutputSink(OutputSink target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::drain, "output-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void write(CharSequence text) {
+        checkFailure();
+        put(text.toString());
+        queued++;
+    }
+
+    /**
+     * Waits until the writer thread has written everything queued so far, then
+     * flushes the target.
+     */
+    @Override
+    public void flush() {
+        awaitWritten();
+        checkFailure();
+        target.flush();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        put(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while closing the output"));
+        }
+        target.close();
+        checkFailure();
+    }
+
+    /**
+     * Body of the writer thread. After an error the remaining text is dropped, so
+     * the simulation never blocks on a full queue.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                String text = queue.take();
+                if (text == END) {
+                    return;
+                }
+                if (failure == null) {
+                    try {
+                        target.write(text);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+                synchronized (lock) {
+                    written++;
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new UncheckedIOException(new InterruptedIOException("Output writer interrupted"));
+        }
+    }
+
+    private void put(String text) {
+        try {
+            queue.put(text);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing the output"));
+        }
+    }
+
+    private void awaitWritten() {
+        synchronized (lock) {
+            while (written < queued && writerThread.isAlive()) {
+                try {
+                    lock.wait(100); // Wakes up to notice a writer thread that died
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while flushing the output"));
+                }
+            }
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw e;
+        }
+    }
+}
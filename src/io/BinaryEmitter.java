@@ -0,0 +1,102 @@
+package io;
+
+import model.Individual;
+import model.Point;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Emits every observation and the final result as a compact binary record,
+ * written big-endian as by {@link DataOutputStream}.
+ * An observation record is:
+ * <pre>
+ * byte 1, int observation, double time, long events, int populationSize, best
+ * </pre>
+ * and the final result record is:
+ * <pre>
+ * byte 2, best
+ * </pre>
+ * where best is a byte 1 if the final point has been hit and 0 otherwise, then a
+ * byte 1 if there is a best individual and 0 otherwise, followed for a best
+ * individual by int cost, double comfort, int number of points and an int x and
+ * int y for every point of its path.
+ */
+public class BinaryEmitter implements ResultEmitter {
+    public static final byte OBSERVATION = 1;
+    public static final byte RESULT = 2;
+
+    private final DataOutputStream out;
+
+    /**
+     * Creates a binary emitter writing to the given stream through a large buffer.
+     *
+     * @param out The stream to write to
+     */
+    public BinaryEmitter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, StreamOutputSink.DEFAULT_BUFFER_SIZE));
+    }
+
+    @Override
+    public void emitObservation(int observationNumber, double time, long events, int populationSize,
+                                boolean finalPointHit, Individual bestIndividual) {
+        try {
+            out.writeByte(OBSERVATION);
+            out.writeInt(observationNumber);
+            out.writeDouble(time);
+            out.writeLong(events);
+            out.writeInt(populationSize);
+            writeBest(finalPointHit, bestIndividual);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void emitFinalResult(boolean finalPointHit, Individual bestIndividual) {
+        try {
+            out.writeByte(RESULT);
+            writeBest(finalPointHit, bestIndividual);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBest(boolean finalPointHit, Individual bestIndividual) throws IOException {
+        out.writeBoolean(finalPointHit);
+        out.writeBoolean(bestIndividual != null);
+        if (bestIndividual == null) {
+            return;
+        }
+
+        out.writeInt(bestIndividual.getPath().getCost());
+        out.writeDouble(bestIndividual.getComfort());
+        Point[] points = bestIndividual.getPath().toArray();
+        out.writeInt(points.length);
+        for (Point point : points) {
+            out.writeInt(point.getX());
+            out.writeInt(point.getY());
+        }
+    }
+}
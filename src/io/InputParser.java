@@ -3,6 +3,7 @@ package io;
 import model.Grid;
 import model.Point;
 import util.RandomGenerator;
+import util.RandomSource;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -11,7 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * Handles parsing input from command line arguments or files.
@@ -24,12 +24,23 @@ public class InputParser {
      * @return A map of parsed parameters
      */
     public static Map<String, Object> parseRandomParameters(String[] args) {
+        return parseRandomParameters(args, RandomSource.create());
+    }
+
+    /**
+     * Parses command line arguments for random parameter generation, drawing the
+     * obstacles and special cost zones from the given source.
+     *
+     * @param args The command line arguments
+     * @param random The random source for the grid elements
+     * @return A map of parsed parameters
+     */
+    public static Map<String, Object> parseRandomParameters(String[] args, RandomSource random) {
         if (args.length < 14) {
             throw new IllegalArgumentException("Insufficient arguments for random generation");
         }
 
         Map<String, Object> parameters = new HashMap<>();
-        Random random = new Random();
 
         try {
             // Parse grid dimensions and points
@@ -73,8 +84,8 @@ public class InputParser {
             // Store parameters
             parameters.put("width", width);
             parameters.put("height", height);
-            parameters.put("initialPoint", initialPoint);
-            parameters.put("finalPoint", finalPoint);
+            parameters.put("initialPoint", grid.getInitialPoint());
+            parameters.put("finalPoint", grid.getFinalPoint());
             parameters.put("numSpecialCostZones", numSpecialCostZones);
             parameters.put("numObstacles", numObstacles);
             parameters.put("simulationTime", simulationTime);
@@ -84,7 +95,7 @@ public class InputParser {
             parameters.put("deathMean", deathMean);
             parameters.put("moveMean", moveMean);
             parameters.put("reproductionMean", reproductionMean);
-            parameters.put("obstacles", obstacles);
+            parameters.put("obstacles", grid.getObstacles());
             parameters.put("specialCostZones", specialCostZones);
             parameters.put("grid", grid);
 
@@ -199,8 +210,8 @@ public class InputParser {
             // Store parameters
             parameters.put("width", width);
             parameters.put("height", height);
-            parameters.put("initialPoint", initialPoint);
-            parameters.put("finalPoint", finalPoint);
+            parameters.put("initialPoint", grid.getInitialPoint());
+            parameters.put("finalPoint", grid.getFinalPoint());
             parameters.put("numSpecialCostZones", numSpecialCostZones);
             parameters.put("numObstacles", numObstacles);
             parameters.put("simulationTime", simulationTime);
@@ -210,7 +221,7 @@ public class InputParser {
             parameters.put("deathMean", deathMean);
             parameters.put("moveMean", moveMean);
             parameters.put("reproductionMean", reproductionMean);
-            parameters.put("obstacles", obstacles);
+            parameters.put("obstacles", grid.getObstacles());
             parameters.put("specialCostZones", specialCostZones);
             parameters.put("grid", grid);
             parameters.put("filePath", filePath);
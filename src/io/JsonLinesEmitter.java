@@ -0,0 +1,116 @@
+package io;
+
+import model.Individual;
+import model.Point;
+
+/**
+ * Emits every observation and the final result as one JSON object per line:
+ * <pre>
+ * {"type":"observation","observation":3,"time":150.0,"events":5123,"populationSize":412,
+ *  "finalPointHit":false,"cost":31,"comfort":0.42,"path":[[1,1],[2,1]]}
+ * {"type":"result","finalPointHit":true,"cost":48,"comfort":0.61,"path":[[1,1],...]}
+ * </pre>
+ * Without a best individual, cost, comfort and path are null. JSON has no NaN or
+ * infinity, so a time or comfort that is not finite is written as null too. A run
+ * number, if given, is added to every line as "run", so the lines of several runs
+ * can share a file.
+ */
+public class JsonLinesEmitter implements ResultEmitter {
+    private final OutputSink sink;
+    private final int run;
+    private final StringBuilder line;
+
+    /**
+     * Creates an emitter for a single run.
+     *
+     * @param sink The sink to write the lines to
+     */
+    public JsonLinesEmitter(OutputSink sink) {
+        this(sink, -1);
+    }
+
+    /**
+     * Creates an emitter that tags its lines with a run number.
+     *
+     * @param sink The sink to write the lines to
+     * @param run The run number, or -1 for no run number
+     */
+    public JsonLinesEmitter(OutputSink sink, int run) {
+        this.sink = sink;
+        this.run = run;
+        this.line = new StringBuilder(1 << 12);
+    }
+
+    @Override
+    public void emitObservation(int observationNumber, double time, long events, int populationSize,
+                                boolean finalPointHit, Individual bestIndividual) {
+        start("observation");
+        line.append(",\"observation\":").append(observationNumber);
+        line.append(",\"time\":");
+        appendNumber(time);
+        line.append(",\"events\":").append(events);
+        line.append(",\"populationSize\":").append(populationSize);
+        appendBest(finalPointHit, bestIndividual);
+        sink.write(line);
+    }
+
+    @Override
+    public void emitFinalResult(boolean finalPointHit, Individual bestIndividual) {
+        start("result");
+        appendBest(finalPointHit, bestIndividual);
+        sink.write(line);
+    }
+
+    @Override
+    public void flush() {
+        sink.flush();
+    }
+
+    @Override
+    public void close() {
+        sink.close();
+    }
+
+    private void start(String type) {
+        line.setLength(0);
+        line.append("{\"type\":\"").append(type).append('"');
+        if (run >= 0) {
+            line.append(",\"run\":").append(run);
+        }
+    }
+
+    /**
+     * Appends the hit flag and the best individual, and ends the line.
+     */
+    private void appendBest(boolean finalPointHit, Individual bestIndividual) {
+        line.append(",\"finalPointHit\":").append(finalPointHit);
+        if (bestIndividual == null) {
+            line.append(",\"cost\":null,\"comfort\":null,\"path\":null}\n");
+            return;
+        }
+
+        line.append(",\"cost\":").append(bestIndividual.getPath().getCost());
+        line.append(",\"comfort\":");
+        appendNumber(bestIndividual.getComfort());
+        line.append(",\"path\":[");
+        Point[] points = bestIndividual.getPath().toArray();
+        for (int i = 0; i < points.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('[').append(points[i].getX()).append(',').append(points[i].getY()).append(']');
+        }
+        line.append("]}\n");
+    }
+
+    /**
+     * Appends a number, or null if it is NaN or infinite.
+     */
+    private void appendNumber(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append("null");
+        } else {
+            line.append(value);
+        }
+    }
+}
@@ -5,23 +5,64 @@ import model.Individual;
 import model.Point;
 import visualization.GridVisualizer;
 
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Handles generating formatted output for the simulation.
+ * Each block of output is formatted into one reusable builder and handed to the
+ * sink in a single write. Depending on the output mode, observations, or both
+ * observations and the input echo, are skipped without being formatted.
+ * Observations and the final result are also forwarded, as values, to any
+ * attached {@link ResultEmitter}, whatever the output mode.
  */
 public class OutputGenerator {
-    // Flag to toggle grid visualization
-    private static boolean pathVisualizationEnabled = false;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final OutputSink sink;
+    private final OutputMode mode;
+    private final boolean pathVisualizationEnabled;
+    private final StringBuilder text;
+    private final List<ResultEmitter> emitters;
+
+    /**
+     * Creates an output generator that prints everything to the given stream
+     * through a large buffer. The sink is flushed after every observation; the
+     * output is complete once {@link #flush()} or {@link #close()} is called.
+     * Every simulation has its own generator, so simulations can run side by side.
+     *
+     * @param out The stream to print to
+     * @param pathVisualizationEnabled True to also draw the grid with the best path
+     */
+    public OutputGenerator(OutputStream out, boolean pathVisualizationEnabled) {
+        this(new StreamOutputSink(out), OutputMode.FULL, pathVisualizationEnabled);
+    }
 
     /**
-     * Enables or disables path visualization.
+     * Creates an output generator that prints to the given sink.
      *
-     * @param enabled True to enable visualization, false to disable
+     * @param sink The sink to print to
+     * @param mode How much of the simulation to print
+     * @param pathVisualizationEnabled True to also draw the grid with the best path
      */
-    public static void setPathVisualizationEnabled(boolean enabled) {
-        pathVisualizationEnabled = enabled;
+    public OutputGenerator(OutputSink sink, OutputMode mode, boolean pathVisualizationEnabled) {
+        this.sink = sink;
+        this.mode = mode;
+        this.pathVisualizationEnabled = pathVisualizationEnabled;
+        this.text = new StringBuilder(1 << 12);
+        this.emitters = new ArrayList<>();
+    }
+
+    /**
+     * Attaches an emitter that receives every observation and the final result.
+     * The emitter is flushed and closed together with this generator.
+     *
+     * @param emitter The emitter
+     */
+    public void addEmitter(ResultEmitter emitter) {
+        emitters.add(emitter);
     }
 
     /**
@@ -29,16 +70,58 @@ public class OutputGenerator {
      *
      * @return True if visualization is enabled, false otherwise
      */
-    public static boolean isPathVisualizationEnabled() {
+    public boolean isPathVisualizationEnabled() {
         return pathVisualizationEnabled;
     }
 
+    /**
+     * Gets the output mode.
+     *
+     * @return The output mode
+     */
+    public OutputMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks if observations are printed, so callers can skip gathering them.
+     *
+     * @return True if observations are printed, false otherwise
+     */
+    public boolean isObservationEnabled() {
+        return mode == OutputMode.FULL || !emitters.isEmpty();
+    }
+
+    /**
+     * Writes out everything printed and emitted so far.
+     */
+    public void flush() {
+        for (ResultEmitter emitter : emitters) {
+            emitter.flush();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Writes out everything printed and emitted so far and closes the sink and the emitters.
+     */
+    public void close() {
+        for (ResultEmitter emitter : emitters) {
+            emitter.close();
+        }
+        sink.close();
+    }
+
     /**
      * Prints the input parameters to the terminal.
      *
      * @param parameters The map of parameters
      */
-    public static void printInputParameters(Map<String, Object> parameters) {
+    public void printInputParameters(Map<String, Object> parameters) {
+        if (mode == OutputMode.QUIET || mode == OutputMode.NONE) {
+            return;
+        }
+
         int width = (int) parameters.get("width");
         int height = (int) parameters.get("height");
         Point initialPoint = (Point) parameters.get("initialPoint");
@@ -54,16 +137,17 @@ public class OutputGenerator {
         double reproductionMean = (double) parameters.get("reproductionMean");
 
         // Print first line
-        System.out.println(width + " " + height + " " +
+        text.setLength(0);
+        text.append(width + " " + height + " " +
                 initialPoint.getX() + " " + initialPoint.getY() + " " +
                 finalPoint.getX() + " " + finalPoint.getY() + " " +
                 numSpecialCostZones + " " + numObstacles + " " +
                 (int) simulationTime + " " + initialPopulation + " " + maxPopulation + " " +
-                (int) comfortSensitivity + " " + (int) deathMean + " " + (int) moveMean + " " + (int) reproductionMean);
+                (int) comfortSensitivity + " " + (int) deathMean + " " + (int) moveMean + " " + (int) reproductionMean).append(NEWLINE);
 
         // Print special cost zones
         if (numSpecialCostZones > 0) {
-            System.out.println("special cost zones:");
+            text.append("special cost zones:").append(NEWLINE);
             @SuppressWarnings("unchecked")
             List<Grid.SpecialCostZone> specialCostZones = (List<Grid.SpecialCostZone>) parameters.get("specialCostZones");
 
@@ -72,29 +156,32 @@ public class OutputGenerator {
                 Point topRight = zone.getTopRight();
                 int cost = zone.getCost();
 
-                System.out.println(bottomLeft.getX() + " " + bottomLeft.getY() + " " +
-                        topRight.getX() + " " + topRight.getY() + " " + cost);
+                text.append(bottomLeft.getX()).append(' ').append(bottomLeft.getY()).append(' ')
+                        .append(topRight.getX()).append(' ').append(topRight.getY()).append(' ')
+                        .append(cost).append(NEWLINE);
             }
         }
 
         // Print obstacles
         if (numObstacles > 0) {
-            System.out.println("obstacles:");
+            text.append("obstacles:").append(NEWLINE);
             @SuppressWarnings("unchecked")
             List<Point> obstacles = (List<Point>) parameters.get("obstacles");
 
             for (Point obstacle : obstacles) {
-                System.out.println(obstacle.getX() + " " + obstacle.getY());
+                text.append(obstacle.getX()).append(' ').append(obstacle.getY()).append(NEWLINE);
             }
         }
 
         // Add two line breaks
-        System.out.println();
-        System.out.println();
+        text.append(NEWLINE).append(NEWLINE);
+        sink.write(text);
     }
 
     /**
-     * Prints an observation of the population.
+     * Prints an observation of the population, unless observations are disabled,
+     * and emits it to the attached emitters. The printed text is flushed to the
+     * sink right away, so it survives a run that is stopped before the end.
      *
      * @param observationNumber The observation number
      * @param time The current time
@@ -104,37 +191,48 @@ public class OutputGenerator {
      * @param bestIndividual The best individual
      * @param finalPoint The final point
      */
-    public static void printObservation(int observationNumber, double time, int events,
+    public void printObservation(int observationNumber, double time, long events,
                                         int populationSize, boolean finalPointHit,
                                         Individual bestIndividual, Point finalPoint) {
-        System.out.println("Observation number: " + observationNumber);
-        System.out.println("Present time: " + time);
-        System.out.println("Number of realized events: " + events);
-        System.out.println("Population size: " + populationSize);
-        System.out.println("Final point has been hit: " + (finalPointHit ? "yes" : "no"));
+        for (ResultEmitter emitter : emitters) {
+            emitter.emitObservation(observationNumber, time, events, populationSize, finalPointHit, bestIndividual);
+        }
+        if (mode != OutputMode.FULL) {
+            return;
+        }
+
+        text.setLength(0);
+        text.append("Observation number: ").append(observationNumber).append(NEWLINE);
+        text.append("Present time: ").append(time).append(NEWLINE);
+        text.append("Number of realized events: ").append(events).append(NEWLINE);
+        text.append("Population size: ").append(populationSize).append(NEWLINE);
+        text.append("Final point has been hit: ").append(finalPointHit ? "yes" : "no").append(NEWLINE);
 
         if (bestIndividual != null) {
-            System.out.println("Path of the best fit individual: " + bestIndividual.getPath().getPoints());
+            text.append("Path of the best fit individual: ");
+            bestIndividual.getPath().appendTo(text).append(NEWLINE);
 
             if (finalPointHit) {
-                System.out.println("Cost: " + bestIndividual.getPath().getCost());
+                text.append("Cost: ").append(bestIndividual.getPath().getCost()).append(NEWLINE);
             } else {
-                System.out.println("Comfort: " + bestIndividual.getComfort());
+                text.append("Comfort: ").append(bestIndividual.getComfort()).append(NEWLINE);
             }
 
             // Display grid visualization if enabled
-            if (pathVisualizationEnabled && bestIndividual.getPath().getPoints().size() > 1) {
+            if (pathVisualizationEnabled && bestIndividual.getPath().getLength() > 0) {
                 Grid grid = bestIndividual.getPath().getGrid();
                 if (grid != null) {
-                    GridVisualizer.visualizeGrid(grid, bestIndividual);
+                    GridVisualizer.visualizeGrid(grid, bestIndividual, text);
                 }
             }
         } else {
-            System.out.println("Path of the best fit individual: []");
-            System.out.println("Comfort: 0.0");
+            text.append("Path of the best fit individual: []").append(NEWLINE);
+            text.append("Comfort: 0.0").append(NEWLINE);
         }
 
-        System.out.println();
+        text.append(NEWLINE);
+        sink.write(text);
+        sink.flush(); // A run that is killed keeps the observations printed so far
     }
 
     /**
@@ -142,20 +240,42 @@ public class OutputGenerator {
      *
      * @param bestIndividual The best individual found during the simulation
      */
-    public static void printFinalResult(Individual bestIndividual) {
+    public void printFinalResult(Individual bestIndividual) {
+        Grid grid = bestIndividual != null ? bestIndividual.getPath().getGrid() : null;
+        printFinalResult(bestIndividual,
+                grid != null && bestIndividual.hasReachedFinalPoint(grid.getFinalPoint()));
+    }
+
+    /**
+     * Prints the final result of the simulation and emits it to the attached emitters.
+     *
+     * @param bestIndividual The best individual found during the simulation
+     * @param finalPointHit Whether the best individual has reached the final point
+     */
+    public void printFinalResult(Individual bestIndividual, boolean finalPointHit) {
+        for (ResultEmitter emitter : emitters) {
+            emitter.emitFinalResult(finalPointHit, bestIndividual);
+        }
+        if (mode == OutputMode.NONE) {
+            return;
+        }
+
+        text.setLength(0);
         if (bestIndividual != null) {
-            System.out.println("Best fit individual: " + bestIndividual.getPath().getPoints() +
-                    " with cost " + bestIndividual.getPath().getCost());
+            text.append("Best fit individual: ");
+            bestIndividual.getPath().appendTo(text)
+                    .append(" with cost ").append(bestIndividual.getPath().getCost()).append(NEWLINE);
 
             // Display final grid visualization if enabled
             if (pathVisualizationEnabled) {
                 Grid grid = bestIndividual.getPath().getGrid();
                 if (grid != null) {
-                    GridVisualizer.visualizeGrid(grid, bestIndividual);
+                    GridVisualizer.visualizeGrid(grid, bestIndividual, text);
                 }
             }
         } else {
-            System.out.println("No solution found");
+            text.append("No solution found").append(NEWLINE);
         }
+        sink.write(text);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package io;
+
+/**
+ * How much of the simulation an {@link OutputGenerator} prints.
+ */
+public enum OutputMode {
+    /** The input parameters, every observation and the final result. */
+    FULL,
+    /** The input parameters and the final result, without observations. */
+    FINAL_ONLY,
+    /** Only the final result. */
+    QUIET,
+    /** No text at all, for runs that are only followed through a {@link ResultEmitter}. */
+    NONE
+}
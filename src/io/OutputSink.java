@@ -0,0 +1,29 @@
+package io;
+
+import java.io.Closeable;
+
+/**
+ * Destination of the text printed by an {@link OutputGenerator}.
+ * The generator formats each block of output, such as one observation, into a
+ * single piece of text and hands it over in one call.
+ * Errors are reported as {@link java.io.UncheckedIOException}.
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * Writes a piece of text. The text may be changed by the caller once this returns.
+     *
+     * @param text The text to write
+     */
+    void write(CharSequence text);
+
+    /**
+     * Writes out everything written so far.
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the sink. Nothing can be written afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,45 @@
+package io;
+
+import model.Individual;
+
+import java.io.Closeable;
+
+/**
+ * Receives the observations and the final result of a simulation as values
+ * instead of text, for tools that consume runs without parsing the text output.
+ * Emitters are attached to an {@link OutputGenerator}, which forwards every
+ * observation and the final result to them whatever its output mode.
+ */
+public interface ResultEmitter extends Closeable {
+    /**
+     * Emits an observation of the population.
+     *
+     * @param observationNumber The observation number
+     * @param time The current time
+     * @param events The number of processed events
+     * @param populationSize The size of the population
+     * @param finalPointHit Whether the best individual has reached the final point
+     * @param bestIndividual The best individual, or null if there is none
+     */
+    void emitObservation(int observationNumber, double time, long events, int populationSize,
+                         boolean finalPointHit, Individual bestIndividual);
+
+    /**
+     * Emits the final result of the simulation.
+     *
+     * @param finalPointHit Whether the best individual has reached the final point
+     * @param bestIndividual The best individual found during the simulation, or null if there is none
+     */
+    void emitFinalResult(boolean finalPointHit, Individual bestIndividual);
+
+    /**
+     * Writes out everything emitted so far.
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the emitter.
+     */
+    @Override
+    void close();
+}
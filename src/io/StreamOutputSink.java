@@ -0,0 +1,65 @@
+package io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output sink that encodes text as UTF-8 into a stream through a large buffer,
+ * so the stream only sees a few big writes instead of one per line.
+ */
+public class StreamOutputSink implements OutputSink {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+
+    /**
+     * Creates a sink with the default buffer size.
+     *
+     * @param out The stream to write to
+     */
+    public StreamOutputSink(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a sink with the given buffer size.
+     *
+     * @param out The stream to write to
+     * @param bufferSize The number of characters buffered before they are written to the stream
+     */
+    public StreamOutputSink(OutputStream out, int bufferSize) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+    }
+
+    @Override
+    public void write(CharSequence text) {
+        try {
+            writer.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,22 +1,49 @@
 package model;
 
+import util.RandomSource;
+
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 
 /**
  * Represents the grid with obstacles and special cost zones.
  */
 public class Grid {
+    // Direction bits of a move mask, in the same order as getValidAdjacentPoints
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int SOUTH = 2;
+    private static final int WEST = 3;
+
+    // Direction of the i-th valid move for each mask, at index mask * 4 + i
+    private static final byte[] MOVE_DIRECTIONS = new byte[16 * 4];
+
+    static {
+        for (int mask = 0; mask < 16; mask++) {
+            int i = 0;
+            for (int direction = NORTH; direction <= WEST; direction++) {
+                if ((mask & (1 << direction)) != 0) {
+                    MOVE_DIRECTIONS[mask * 4 + i++] = (byte) direction;
+                }
+            }
+        }
+    }
+
     private final int width;
     private final int height;
     private final Point initialPoint;
     private final Point finalPoint;
     private final List<Point> obstacles;
-    private final Map<EdgeKey, Integer> specialCosts;
-    private final int maxCost;
+    private final long[] obstacleBits; // One bit per cell, indexed by cell id
+    private final Point[] cellPoints; // Canonical point of each cell, indexed by cell id
+    private final byte[] moveMasks; // Valid move directions per cell, indexed by cell id
+    private final int[] cellOffsets; // Cell id offset per direction
+    private final short[] horizontalCosts; // Edge (x, y)-(x + 1, y) at (y - 1) * (width - 1) + (x - 1)
+    private final short[] verticalCosts; // Edge (x, y)-(x, y + 1) at (y - 1) * width + (x - 1)
+    private int maxCost;
 
     /**
      * Creates a new grid with the given dimensions and points.
@@ -29,11 +56,18 @@ public class Grid {
     public Grid(int width, int height, Point initialPoint, Point finalPoint) {
         this.width = width;
         this.height = height;
-        this.initialPoint = initialPoint;
-        this.finalPoint = finalPoint;
+        this.cellPoints = createCellPoints();
+        this.initialPoint = canonical(initialPoint);
+        this.finalPoint = canonical(finalPoint);
         this.obstacles = new ArrayList<>();
-        this.specialCosts = new HashMap<>();
+        this.obstacleBits = new long[(width * height + 63) >>> 6];
+        this.moveMasks = new byte[width * height];
+        this.cellOffsets = new int[]{width, 1, -width, -1};
+        this.horizontalCosts = newEdgeCosts((width - 1) * height);
+        this.verticalCosts = newEdgeCosts(width * (height - 1));
         this.maxCost = 1; // Default max cost
+
+        computeMoveMasks();
     }
 
     /**
@@ -50,26 +84,95 @@ public class Grid {
                 List<Point> obstacles, List<SpecialCostZone> specialCostZones) {
         this.width = width;
         this.height = height;
-        this.initialPoint = initialPoint;
-        this.finalPoint = finalPoint;
-        this.obstacles = new ArrayList<>(obstacles);
-        this.specialCosts = new HashMap<>();
+        this.cellPoints = createCellPoints();
+        this.initialPoint = canonical(initialPoint);
+        this.finalPoint = canonical(finalPoint);
+        this.obstacles = new ArrayList<>(obstacles.size());
+        this.obstacleBits = new long[(width * height + 63) >>> 6];
+        this.moveMasks = new byte[width * height];
+        this.cellOffsets = new int[]{width, 1, -width, -1};
+        this.horizontalCosts = newEdgeCosts((width - 1) * height);
+        this.verticalCosts = newEdgeCosts(width * (height - 1));
+
+        for (Point obstacle : obstacles) {
+            Point canonicalObstacle = canonical(obstacle);
+            this.obstacles.add(canonicalObstacle);
+            markObstacle(canonicalObstacle);
+        }
+        computeMoveMasks();
 
         // Process special cost zones
         for (SpecialCostZone zone : specialCostZones) {
             processSpecialCostZone(zone);
         }
 
-        // Calculate the maximum cost
-        int max = 1; // Default edge cost
-        for (int cost : specialCosts.values()) {
-            max = Math.max(max, cost);
+        this.maxCost = calculateMaxCost();
+    }
+
+    /**
+     * Creates the canonical point of every cell.
+     *
+     * @return The points indexed by cell id
+     */
+    private Point[] createCellPoints() {
+        Point[] points = new Point[width * height];
+        for (int y = 1; y <= height; y++) {
+            for (int x = 1; x <= width; x++) {
+                points[cellId(x, y)] = new Point(x, y);
+            }
         }
-        this.maxCost = max;
+        return points;
+    }
+
+    /**
+     * Gets the canonical point with the same coordinates as the given point.
+     *
+     * @param point The point
+     * @return The canonical point, or the given point itself if it is outside the grid
+     */
+    private Point canonical(Point point) {
+        return isWithinBounds(point) ? cellPoints[cellId(point.getX(), point.getY())] : point;
+    }
+
+    /**
+     * Computes the valid move directions of every cell from the current obstacles.
+     */
+    private void computeMoveMasks() {
+        for (int y = 1; y <= height; y++) {
+            for (int x = 1; x <= width; x++) {
+                int mask = 0;
+                if (y < height && !isObstacleCell(cellId(x, y + 1))) {
+                    mask |= 1 << NORTH;
+                }
+                if (x < width && !isObstacleCell(cellId(x + 1, y))) {
+                    mask |= 1 << EAST;
+                }
+                if (y > 1 && !isObstacleCell(cellId(x, y - 1))) {
+                    mask |= 1 << SOUTH;
+                }
+                if (x > 1 && !isObstacleCell(cellId(x - 1, y))) {
+                    mask |= 1 << WEST;
+                }
+                moveMasks[cellId(x, y)] = (byte) mask;
+            }
+        }
+    }
+
+    /**
+     * Creates an edge cost array with every edge at the default cost of 1.
+     *
+     * @param length The number of edges
+     * @return The edge cost array
+     */
+    private static short[] newEdgeCosts(int length) {
+        short[] costs = new short[Math.max(0, length)];
+        Arrays.fill(costs, (short) 1);
+        return costs;
     }
 
     /**
-     * Process a special cost zone to add its edges to the specialCosts map.
+     * Process a special cost zone to raise the cost of its edges in the edge cost arrays.
+     * Edges of the zone that fall outside the grid are ignored.
      *
      * @param zone The special cost zone
      */
@@ -78,34 +181,142 @@ public class Grid {
         Point topRight = zone.getTopRight();
         int cost = zone.getCost();
 
+        if (cost > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Special cost zone cost must not exceed " + Short.MAX_VALUE);
+        }
+
         // Add horizontal edges at the bottom and top of the rectangle
         for (int x = bottomLeft.getX(); x < topRight.getX(); x++) {
-            // Bottom edge
-            Point p1 = new Point(x, bottomLeft.getY());
-            Point p2 = new Point(x + 1, bottomLeft.getY());
-            EdgeKey key = new EdgeKey(p1, p2);
-            specialCosts.put(key, Math.max(specialCosts.getOrDefault(key, 1), cost));
-
-            // Top edge
-            p1 = new Point(x, topRight.getY());
-            p2 = new Point(x + 1, topRight.getY());
-            key = new EdgeKey(p1, p2);
-            specialCosts.put(key, Math.max(specialCosts.getOrDefault(key, 1), cost));
+            raiseCost(horizontalCosts, horizontalEdgeIndex(x, bottomLeft.getY()), cost); // Bottom edge
+            raiseCost(horizontalCosts, horizontalEdgeIndex(x, topRight.getY()), cost); // Top edge
         }
 
         // Add vertical edges at the left and right of the rectangle
         for (int y = bottomLeft.getY(); y < topRight.getY(); y++) {
-            // Left edge
-            Point p1 = new Point(bottomLeft.getX(), y);
-            Point p2 = new Point(bottomLeft.getX(), y + 1);
-            EdgeKey key = new EdgeKey(p1, p2);
-            specialCosts.put(key, Math.max(specialCosts.getOrDefault(key, 1), cost));
-
-            // Right edge
-            p1 = new Point(topRight.getX(), y);
-            p2 = new Point(topRight.getX(), y + 1);
-            key = new EdgeKey(p1, p2);
-            specialCosts.put(key, Math.max(specialCosts.getOrDefault(key, 1), cost));
+            raiseCost(verticalCosts, verticalEdgeIndex(bottomLeft.getX(), y), cost); // Left edge
+            raiseCost(verticalCosts, verticalEdgeIndex(topRight.getX(), y), cost); // Right edge
+        }
+    }
+
+    /**
+     * Raises the cost of an edge to the given cost if it is currently lower.
+     *
+     * @param costs The edge cost array
+     * @param index The edge index, or -1 if the edge is outside the grid
+     * @param cost The new cost
+     */
+    private static void raiseCost(short[] costs, int index, int cost) {
+        if (index >= 0 && costs[index] < cost) {
+            costs[index] = (short) cost;
+        }
+    }
+
+    /**
+     * Calculates the maximum cost of any edge in the edge cost arrays.
+     *
+     * @return The maximum cost
+     */
+    private int calculateMaxCost() {
+        int max = 1; // Default edge cost
+        for (short cost : horizontalCosts) {
+            max = Math.max(max, cost);
+        }
+        for (short cost : verticalCosts) {
+            max = Math.max(max, cost);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the index of the horizontal edge between (x, y) and (x + 1, y).
+     *
+     * @param x The x-coordinate of the left end
+     * @param y The y-coordinate
+     * @return The edge index, or -1 if the edge is outside the grid
+     */
+    private int horizontalEdgeIndex(int x, int y) {
+        if (x < 1 || x >= width || y < 1 || y > height) {
+            return -1;
+        }
+        return (y - 1) * (width - 1) + (x - 1);
+    }
+
+    /**
+     * Gets the index of the vertical edge between (x, y) and (x, y + 1).
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate of the bottom end
+     * @return The edge index, or -1 if the edge is outside the grid
+     */
+    private int verticalEdgeIndex(int x, int y) {
+        if (x < 1 || x > width || y < 1 || y >= height) {
+            return -1;
+        }
+        return (y - 1) * width + (x - 1);
+    }
+
+    /**
+     * Sets the bit of the given obstacle in the obstacle bitset.
+     * Obstacles outside the grid are kept in the list only.
+     *
+     * @param obstacle The obstacle point
+     */
+    private void markObstacle(Point obstacle) {
+        if (isWithinBounds(obstacle)) {
+            int cell = cellId(obstacle.getX(), obstacle.getY());
+            obstacleBits[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Gets the cell id of the given coordinates, numbering cells row by row from (1, 1).
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The cell id
+     */
+    int cellId(int x, int y) {
+        return (y - 1) * width + (x - 1);
+    }
+
+    /**
+     * Gets the canonical point of a cell id.
+     *
+     * @param cell The cell id
+     * @return The point
+     * @throws IllegalArgumentException If the cell id is outside the grid
+     */
+    Point pointAtCell(int cell) {
+        if (cell < 0 || cell >= cellPoints.length) {
+            throw new IllegalArgumentException("Cell " + cell + " is outside the grid");
+        }
+        return cellPoints[cell];
+    }
+
+    /**
+     * Writes everything that makes up the grid: its size, the initial and final
+     * points, the obstacles and the cost of every edge. Two grids write the same
+     * bytes exactly when simulations on them are interchangeable, so a checkpoint
+     * can tell whether it is resumed on the grid it was taken on.
+     *
+     * @param out The output
+     * @throws IOException If writing fails
+     */
+    public void writeLayoutTo(DataOutput out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(initialPoint.getX());
+        out.writeInt(initialPoint.getY());
+        out.writeInt(finalPoint.getX());
+        out.writeInt(finalPoint.getY());
+        for (long bits : obstacleBits) {
+            out.writeLong(bits);
+        }
+        for (short cost : horizontalCosts) {
+            out.writeShort(cost);
+        }
+        for (short cost : verticalCosts) {
+            out.writeShort(cost);
         }
     }
 
@@ -145,6 +356,23 @@ public class Grid {
         return finalPoint;
     }
 
+    /**
+     * Gets the canonical point at the given coordinates.
+     * The grid keeps a single point per cell, so points obtained from the grid
+     * can be compared by identity.
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The point
+     * @throws IllegalArgumentException If the coordinates are outside the grid
+     */
+    public Point pointAt(int x, int y) {
+        if (x < 1 || x > width || y < 1 || y > height) {
+            throw new IllegalArgumentException("Point (" + x + ", " + y + ") is outside the grid");
+        }
+        return cellPoints[cellId(x, y)];
+    }
+
     /**
      * Gets the list of obstacles.
      *
@@ -178,10 +406,23 @@ public class Grid {
      * Checks if the given point is an obstacle.
      *
      * @param point The point to check
-     * @return True if the point is an obstacle, false otherwise
+     * @return True if the point is an obstacle, false otherwise (including points outside the grid)
      */
     public boolean isObstacle(Point point) {
-        return obstacles.contains(point);
+        if (!isWithinBounds(point)) {
+            return false;
+        }
+        return isObstacleCell(cellId(point.getX(), point.getY()));
+    }
+
+    /**
+     * Checks if the cell with the given id is an obstacle.
+     *
+     * @param cell The cell id
+     * @return True if the cell is an obstacle, false otherwise
+     */
+    private boolean isObstacleCell(int cell) {
+        return (obstacleBits[cell >>> 6] & (1L << cell)) != 0;
     }
 
     /**
@@ -196,8 +437,16 @@ public class Grid {
             throw new IllegalArgumentException("Points must be adjacent");
         }
 
-        EdgeKey key = new EdgeKey(p1, p2);
-        return specialCosts.getOrDefault(key, 1); // Default cost is 1
+        int index;
+        short[] costs;
+        if (p1.getY() == p2.getY()) {
+            index = horizontalEdgeIndex(Math.min(p1.getX(), p2.getX()), p1.getY());
+            costs = horizontalCosts;
+        } else {
+            index = verticalEdgeIndex(p1.getX(), Math.min(p1.getY(), p2.getY()));
+            costs = verticalCosts;
+        }
+        return index >= 0 ? costs[index] : 1; // Default cost is 1
     }
 
     /**
@@ -213,35 +462,60 @@ public class Grid {
         int[][] directions = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
 
         for (int[] dir : directions) {
-            Point adjacentPoint = new Point(point.getX() + dir[0], point.getY() + dir[1]);
+            int x = point.getX() + dir[0];
+            int y = point.getY() + dir[1];
 
-            if (isWithinBounds(adjacentPoint) && !isObstacle(adjacentPoint)) {
-                adjacentPoints.add(adjacentPoint);
+            if (x >= 1 && x <= width && y >= 1 && y <= height && !isObstacleCell(cellId(x, y))) {
+                adjacentPoints.add(cellPoints[cellId(x, y)]);
             }
         }
 
         return adjacentPoints;
     }
 
+    /**
+     * Picks a uniformly random valid adjacent point of the given point.
+     * Draws the same random number and gives the same result as picking from
+     * getValidAdjacentPoints, but uses precomputed move masks and allocates nothing.
+     *
+     * @param point The starting point, which must be within the grid
+     * @param random The random number generator
+     * @return A random valid adjacent point, or null if there is none
+     */
+    public Point getRandomAdjacentPoint(Point point, RandomSource random) {
+        int cell = cellId(point.getX(), point.getY());
+        int mask = moveMasks[cell];
+        if (mask == 0) {
+            return null;
+        }
+
+        int direction = MOVE_DIRECTIONS[mask * 4 + random.nextInt(Integer.bitCount(mask))];
+        return cellPoints[cell + cellOffsets[direction]];
+    }
+
     /**
      * Generates random obstacles.
      *
      * @param numObstacles The number of obstacles to generate
      * @param random The random number generator
      */
-    public void generateRandomObstacles(int numObstacles, Random random) {
+    public void generateRandomObstacles(int numObstacles, RandomSource random) {
         obstacles.clear();
+        Arrays.fill(obstacleBits, 0L);
 
         while (obstacles.size() < numObstacles) {
             int x = random.nextInt(width) + 1;
             int y = random.nextInt(height) + 1;
-            Point obstacle = new Point(x, y);
+            Point obstacle = pointAt(x, y);
 
             // Don't place obstacles at the initial or final points
-            if (!obstacle.equals(initialPoint) && !obstacle.equals(finalPoint) && !obstacles.contains(obstacle)) {
+            if (obstacle != initialPoint && obstacle != finalPoint && !isObstacle(obstacle)) {
                 obstacles.add(obstacle);
+                markObstacle(obstacle);
             }
         }
+
+        computeMoveMasks();
     }
 
     /**
@@ -250,8 +524,9 @@ public class Grid {
      * @param numZones The number of zones to generate
      * @param random The random number generator
      */
-    public void generateRandomSpecialCostZones(int numZones, Random random) {
-        specialCosts.clear();
+    public void generateRandomSpecialCostZones(int numZones, RandomSource random) {
+        Arrays.fill(horizontalCosts, (short) 1);
+        Arrays.fill(verticalCosts, (short) 1);
 
         for (int i = 0; i < numZones; i++) {
             // Generate random rectangle coordinates
@@ -266,39 +541,8 @@ public class Grid {
             SpecialCostZone zone = new SpecialCostZone(new Point(x1, y1), new Point(x2, y2), cost);
             processSpecialCostZone(zone);
         }
-    }
-
-    /**
-     * Helper class to store an edge key for the specialCosts map.
-     */
-    private static class EdgeKey {
-        private final Point p1;
-        private final Point p2;
-
-        public EdgeKey(Point p1, Point p2) {
-            // Ensure consistent ordering of points
-            if (p1.getX() < p2.getX() || (p1.getX() == p2.getX() && p1.getY() < p2.getY())) {
-                this.p1 = p1;
-                this.p2 = p2;
-            } else {
-                this.p1 = p2;
-                this.p2 = p1;
-            }
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (obj == null || getClass() != obj.getClass()) return false;
 
-            EdgeKey other = (EdgeKey) obj;
-            return p1.equals(other.p1) && p2.equals(other.p2);
-        }
-
-        @Override
-        public int hashCode() {
-            return 31 * p1.hashCode() + p2.hashCode();
-        }
+        maxCost = calculateMaxCost();
     }
 
     /**
@@ -1,9 +1,12 @@
 package model;
 
 import util.ComfortCalculator;
+import util.ExponentialSampler;
+import util.RandomSource;
 
-import java.util.List;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Represents an individual in the simulation with a path and comfort value.
@@ -11,7 +14,13 @@ import java.util.Random;
 public class Individual {
     private Path path;
     private double comfort;
+    private double waitFactor; // Multiplier of the move and reproduction means, 1 - log(comfort)
+    private double lifeFactor; // Multiplier of the death mean, 1 - log(1 - comfort)
     private boolean isDead;
+    private int pendingEvents; // Events of this individual waiting in the PEC
+    private int schedulerSlot; // Slot of this individual in an IndividualPEC or a GillespieSimulator, or -1
+    private int populationIndex; // Slot in the population, or -1 if not in it
+    private int heapIndex; // Position in the population's best-individual heap, or -1
     private final double creationTime;
     private final double deathTime;
 
@@ -24,27 +33,19 @@ public class Individual {
      * @param comfortSensitivity The comfort sensitivity parameter (k)
      * @param random The random number generator
      */
-    public Individual(Point initialPoint, double creationTime, double deathMean, double comfortSensitivity, Random random) {
+    public Individual(Point initialPoint, double creationTime, double deathMean, double comfortSensitivity, RandomSource random) {
         this.path = new Path();
         this.path.addPoint(initialPoint, null); // No cost for the first point
         this.comfort = 0.0; // Initial comfort as per PDF
+        updateRateFactors();
         this.isDead = false;
+        this.populationIndex = -1;
+        this.heapIndex = -1;
+        this.schedulerSlot = -1;
         this.creationTime = creationTime;
 
-        // Calculate death time - protect against NaN with safe defaults
-        double mean;
-        try {
-            mean = (1 - Math.log(1 - comfort)) * deathMean;
-            if (Double.isNaN(mean) || Double.isInfinite(mean) || mean <= 0) {
-                mean = deathMean; // Default to deathMean if calculation fails
-            }
-        } catch (Exception e) {
-            mean = deathMean; // Default to deathMean if calculation fails
-        }
-
-        // Calculate exponential random variable safely
-        double randomValue = Math.max(0.00001, random.nextDouble()); // Avoid log(0)
-        this.deathTime = creationTime + (-mean * Math.log(randomValue));
+        // Draw the exponential lifetime
+        this.deathTime = creationTime + ExponentialSampler.sample(random, lifeFactor * deathMean);
     }
 
     /**
@@ -53,17 +54,19 @@ public class Individual {
      * @param parent The parent individual
      * @param creationTime The time of creation
      * @param deathMean The mean value for the death event (μ)
-     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param comfortCalculator The comfort calculator of the simulation
      * @param grid The grid for path cost calculation
      * @param random The random number generator
      */
-    public Individual(Individual parent, double creationTime, double deathMean, double comfortSensitivity, Grid grid, Random random) {
+    public Individual(Individual parent, double creationTime, double deathMean, ComfortCalculator comfortCalculator, Grid grid, RandomSource random) {
         this.isDead = false;
+        this.populationIndex = -1;
+        this.heapIndex = -1;
+        this.schedulerSlot = -1;
         this.creationTime = creationTime;
 
         // Create a prefix of the parent's path
-        List<Point> parentPoints = parent.getPath().getPoints();
-        int parentPathLength = parentPoints.size();
+        int parentPathLength = parent.getPath().getLength() + 1;
 
         // Calculate prefix length: 90% + (parent comfort * 10%)
         int prefixLength = Math.min(
@@ -74,32 +77,88 @@ public class Individual {
         // Ensure prefixLength is at least 1
         prefixLength = Math.max(1, prefixLength);
 
-        this.path = new Path();
-        for (int i = 0; i < prefixLength; i++) {
-            if (i == 0) {
-                this.path.addPoint(parentPoints.get(i), null); // First point has no cost
-            } else {
-                this.path.addPoint(parentPoints.get(i), grid);
-            }
-        }
+        this.path = new Path(parent.getPath(), prefixLength, grid); // Shares the prefix with the parent
 
         // Calculate comfort
-        updateComfort(grid, comfortSensitivity);
-
-        // Calculate death time - protect against NaN with safe defaults
-        double mean;
-        try {
-            mean = (1 - Math.log(1 - comfort)) * deathMean;
-            if (Double.isNaN(mean) || Double.isInfinite(mean) || mean <= 0) {
-                mean = deathMean; // Default to deathMean if calculation fails
-            }
-        } catch (Exception e) {
-            mean = deathMean; // Default to deathMean if calculation fails
-        }
+        updateComfort(comfortCalculator);
+
+        // Draw the exponential lifetime
+        this.deathTime = creationTime + ExponentialSampler.sample(random, lifeFactor * deathMean);
+    }
+
+    /**
+     * Creates a snapshot of an individual. The path is shared, not copied, and
+     * later moves of the original do not affect the snapshot.
+     *
+     * @param other The individual to copy
+     */
+    private Individual(Individual other) {
+        this.path = new Path(other.path);
+        this.comfort = other.comfort;
+        this.waitFactor = other.waitFactor;
+        this.lifeFactor = other.lifeFactor;
+        this.isDead = other.isDead;
+        this.populationIndex = -1;
+        this.heapIndex = -1;
+        this.schedulerSlot = -1;
+        this.creationTime = other.creationTime;
+        this.deathTime = other.deathTime;
+    }
+
+    /**
+     * Recreates an individual from a checkpoint.
+     */
+    private Individual(Path path, double comfort, boolean isDead, double creationTime, double deathTime) {
+        this.path = path;
+        this.comfort = comfort;
+        updateRateFactors();
+        this.isDead = isDead;
+        this.populationIndex = -1;
+        this.heapIndex = -1;
+        this.schedulerSlot = -1;
+        this.creationTime = creationTime;
+        this.deathTime = deathTime;
+    }
+
+    /**
+     * Writes the state of this individual, for a checkpoint. The pending events and
+     * the positions in the population are not written.
+     *
+     * @param out The output
+     * @param grid The grid
+     * @throws IOException If writing fails
+     */
+    void writeTo(DataOutput out, Grid grid) throws IOException {
+        out.writeDouble(creationTime);
+        out.writeDouble(deathTime);
+        out.writeDouble(comfort);
+        out.writeBoolean(isDead);
+        path.writeTo(out, grid);
+    }
+
+    /**
+     * Reads an individual written by {@link #writeTo(DataOutput, Grid)}.
+     *
+     * @param in The input
+     * @param grid The grid
+     * @return The individual
+     * @throws IOException If reading fails
+     */
+    static Individual readFrom(DataInput in, Grid grid) throws IOException {
+        double creationTime = in.readDouble();
+        double deathTime = in.readDouble();
+        double comfort = in.readDouble();
+        boolean isDead = in.readBoolean();
+        return new Individual(Path.readFrom(in, grid), comfort, isDead, creationTime, deathTime);
+    }
 
-        // Calculate exponential random variable safely
-        double randomValue = Math.max(0.00001, random.nextDouble()); // Avoid log(0)
-        this.deathTime = creationTime + (-mean * Math.log(randomValue));
+    /**
+     * Creates a snapshot of the current state of this individual.
+     *
+     * @return The snapshot
+     */
+    Individual snapshot() {
+        return new Individual(this);
     }
 
     /**
@@ -136,6 +195,104 @@ public class Individual {
         this.isDead = true;
     }
 
+    /**
+     * Gets the slot of this individual in its population.
+     *
+     * @return The slot, or -1 if the individual is not in a population
+     */
+    int getPopulationIndex() {
+        return populationIndex;
+    }
+
+    /**
+     * Sets the slot of this individual in its population.
+     *
+     * @param populationIndex The slot, or -1 if the individual left the population
+     */
+    void setPopulationIndex(int populationIndex) {
+        this.populationIndex = populationIndex;
+    }
+
+    /**
+     * Gets the position of this individual in a best-individual heap.
+     *
+     * @return The position, or -1 if the individual is not in a heap
+     */
+    int getHeapIndex() {
+        return heapIndex;
+    }
+
+    /**
+     * Sets the position of this individual in a best-individual heap.
+     *
+     * @param heapIndex The position, or -1 if the individual left the heap
+     */
+    void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
+    /**
+     * Gets the number of events of this individual waiting in the PEC.
+     *
+     * @return The number of pending events
+     */
+    public int getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * Records that an event of this individual was added to the PEC.
+     */
+    public void incrementPendingEvents() {
+        pendingEvents++;
+    }
+
+    /**
+     * Records that an event of this individual was removed from the PEC.
+     */
+    public void decrementPendingEvents() {
+        pendingEvents--;
+    }
+
+    /**
+     * Gets the slot of this individual in a scheduler that keeps one entry per
+     * individual, such as a PEC of individual clocks or a rate tree.
+     *
+     * @return The slot, or -1 if the individual has no slot
+     */
+    public int getSchedulerSlot() {
+        return schedulerSlot;
+    }
+
+    /**
+     * Sets the slot of this individual in a scheduler that keeps one entry per
+     * individual, such as a PEC of individual clocks or a rate tree.
+     *
+     * @param schedulerSlot The slot, or -1 if the individual gave up its slot
+     */
+    public void setSchedulerSlot(int schedulerSlot) {
+        this.schedulerSlot = schedulerSlot;
+    }
+
+    /**
+     * Gets the multiplier of the move and reproduction means for the current
+     * comfort, 1 - log(comfort).
+     *
+     * @return The wait factor
+     */
+    public double getWaitFactor() {
+        return waitFactor;
+    }
+
+    /**
+     * Gets the multiplier of the death mean for the current comfort, 1 - log(1 - comfort).
+     *
+     * @return The life factor
+     */
+    public double getLifeFactor() {
+        return lifeFactor;
+    }
+
     /**
      * Gets the creation time of this individual.
      *
@@ -158,61 +315,46 @@ public class Individual {
      * Moves this individual to a random adjacent point.
      *
      * @param grid The grid
-     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param comfortCalculator The comfort calculator of the simulation
      * @param random The random number generator
+     * @return True if the move closed a cycle that was cut out of the path, false otherwise
      */
-    public void move(Grid grid, double comfortSensitivity, Random random) {
-        if (isDead) return;
+    public boolean move(Grid grid, ComfortCalculator comfortCalculator, RandomSource random) {
+        if (isDead) return false;
 
-        Point currentPosition = path.getLastPoint();
-        List<Point> validMoves = grid.getValidAdjacentPoints(currentPosition);
-
-        if (!validMoves.isEmpty()) {
-            // Choose a random direction
-            int direction = random.nextInt(validMoves.size());
-            Point nextPosition = validMoves.get(direction);
+        // Choose a random valid direction
+        Point nextPosition = grid.getRandomAdjacentPoint(path.getLastPoint(), random);
 
+        boolean cycleRemoved = false;
+        if (nextPosition != null) {
             // Add the point to the path
-            path.addPoint(nextPosition, grid);
+            cycleRemoved = path.addPoint(nextPosition, grid);
 
             // Update comfort
-            updateComfort(grid, comfortSensitivity);
+            updateComfort(comfortCalculator);
         }
+        return cycleRemoved;
     }
 
     /**
-     * Updates the comfort value of this individual.
+     * Updates the comfort value of this individual based on its path.
      *
-     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param comfortCalculator The comfort calculator of the simulation
      */
-    private void updateComfort(double comfortSensitivity) {
-        // Used for initial comfort calculation (no path length yet)
-        this.comfort = 0.0;
+    private void updateComfort(ComfortCalculator comfortCalculator) {
+        // Comfort stays 0 until the path has more than one point
+        this.comfort = comfortCalculator.calculateComfort(path);
+        updateRateFactors();
     }
 
     /**
-     * Updates the comfort value of this individual based on its path.
-     *
-     * @param grid The grid
-     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * Recomputes the multipliers of the event means from the current comfort.
+     * A comfort of 0 would make the waiting times infinite and a comfort of 1 the
+     * lifetime infinite; those cases fall back to the plain means.
      */
-    private void updateComfort(Grid grid, double comfortSensitivity) {
-        Point lastPoint = path.getLastPoint();
-        Point finalPoint = grid.getFinalPoint();
-
-        // Calculate comfort only if the path has more than one point
-        if (path.getLength() > 0) {
-            this.comfort = ComfortCalculator.calculateComfort(
-                    path,
-                    lastPoint,
-                    finalPoint,
-                    grid.getMaxCost(),
-                    grid.getWidth() + grid.getHeight(),
-                    comfortSensitivity
-            );
-        } else {
-            this.comfort = 0.0;
-        }
+    private void updateRateFactors() {
+        this.waitFactor = comfort > 0.0 ? 1 - Math.log(comfort) : 1.0;
+        this.lifeFactor = comfort < 1.0 ? 1 - Math.log(1 - comfort) : 1.0;
     }
 
     /**
@@ -223,21 +365,8 @@ public class Individual {
      * @param random The random number generator
      * @return The next move time
      */
-    public double calculateNextMoveTime(double currentTime, double moveMean, Random random) {
-        // Calculate mean safely
-        double mean;
-        try {
-            mean = (1 - Math.log(comfort)) * moveMean;
-            if (Double.isNaN(mean) || Double.isInfinite(mean) || mean <= 0) {
-                mean = moveMean; // Default to moveMean if calculation fails
-            }
-        } catch (Exception e) {
-            mean = moveMean; // Default to moveMean if calculation fails
-        }
-
-        // Calculate exponential random variable safely
-        double randomValue = Math.max(0.00001, random.nextDouble()); // Avoid log(0)
-        return currentTime + (-mean * Math.log(randomValue));
+    public double calculateNextMoveTime(double currentTime, double moveMean, RandomSource random) {
+        return currentTime + ExponentialSampler.sample(random, waitFactor * moveMean);
     }
 
     /**
@@ -248,21 +377,8 @@ public class Individual {
      * @param random The random number generator
      * @return The next reproduction time
      */
-    public double calculateNextReproductionTime(double currentTime, double reproductionMean, Random random) {
-        // Calculate mean safely
-        double mean;
-        try {
-            mean = (1 - Math.log(comfort)) * reproductionMean;
-            if (Double.isNaN(mean) || Double.isInfinite(mean) || mean <= 0) {
-                mean = reproductionMean; // Default to reproductionMean if calculation fails
-            }
-        } catch (Exception e) {
-            mean = reproductionMean; // Default to reproductionMean if calculation fails
-        }
-
-        // Calculate exponential random variable safely
-        double randomValue = Math.max(0.00001, random.nextDouble()); // Avoid log(0)
-        return currentTime + (-mean * Math.log(randomValue));
+    public double calculateNextReproductionTime(double currentTime, double reproductionMean, RandomSource random) {
+        return currentTime + ExponentialSampler.sample(random, waitFactor * reproductionMean);
     }
 
     /**
@@ -272,7 +388,7 @@ public class Individual {
      * @return True if the path has reached the final point, false otherwise
      */
     public boolean hasReachedFinalPoint(Point finalPoint) {
-        return path.containsPoint(finalPoint);
+        return path.hasReachedFinalPoint(finalPoint);
     }
 
     @Override
@@ -0,0 +1,171 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Indexed binary min-heap of individuals. Every individual stores its position in
+ * the heap, so it can be removed or re-positioned after its key changes in O(log n).
+ * The keys are kept in an array next to the individuals, so sifting compares plain
+ * doubles instead of reaching into each individual.
+ * An individual can be in at most one heap at a time.
+ */
+class IndividualHeap {
+    private final ToDoubleFunction<Individual> key;
+    private Individual[] individuals;
+    private double[] keys;
+    private int size;
+
+    /**
+     * Creates a new empty heap.
+     *
+     * @param key The key of an individual; the individual with the smallest key is at the top
+     */
+    IndividualHeap(ToDoubleFunction<Individual> key) {
+        this.key = key;
+        this.individuals = new Individual[16];
+        this.keys = new double[16];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the top individual without removing it.
+     *
+     * @return The top individual, or null if the heap is empty
+     */
+    Individual peek() {
+        return size == 0 ? null : individuals[0];
+    }
+
+    /**
+     * Gets the number of individuals in the heap.
+     *
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the individual at a position of the heap array.
+     *
+     * @param index The position
+     * @return The individual
+     */
+    Individual get(int index) {
+        return individuals[index];
+    }
+
+    /**
+     * Replaces the contents of the heap with individuals already in heap order,
+     * e.g. from a checkpoint, so that equal keys keep their order.
+     *
+     * @param order The individuals, in the order of the heap array
+     */
+    void restore(Individual[] order) {
+        individuals = Arrays.copyOf(order, Math.max(16, order.length));
+        keys = new double[individuals.length];
+        size = order.length;
+        for (int i = 0; i < size; i++) {
+            place(i, order[i], key.applyAsDouble(order[i]));
+        }
+    }
+
+    /**
+     * Checks if the given individual is in this heap.
+     *
+     * @param individual The individual
+     * @return True if the individual is in this heap, false otherwise
+     */
+    boolean contains(Individual individual) {
+        int index = individual.getHeapIndex();
+        return index >= 0 && index < size && individuals[index] == individual;
+    }
+
+    /**
+     * Adds an individual to the heap.
+     *
+     * @param individual The individual, which must not be in any heap
+     */
+    void add(Individual individual) {
+        if (size == individuals.length) {
+            individuals = Arrays.copyOf(individuals, 2 * size);
+            keys = Arrays.copyOf(keys, 2 * size);
+        }
+        siftUp(size++, individual, key.applyAsDouble(individual));
+    }
+
+    /**
+     * Removes an individual from the heap.
+     *
+     * @param individual The individual, which must be in this heap
+     */
+    void remove(Individual individual) {
+        int index = individual.getHeapIndex();
+        individual.setHeapIndex(-1);
+        size--;
+        Individual last = individuals[size];
+        double lastKey = keys[size];
+        individuals[size] = null;
+        if (last != individual) {
+            reposition(index, last, lastKey);
+        }
+    }
+
+    /**
+     * Restores the heap order after the key of an individual has changed.
+     *
+     * @param individual The individual, which must be in this heap
+     */
+    void update(Individual individual) {
+        reposition(individual.getHeapIndex(), individual, key.applyAsDouble(individual));
+    }
+
+    /**
+     * Puts an individual into the given free position and sifts it up or down.
+     *
+     * @param index The position
+     * @param individual The individual
+     * @param individualKey The key of the individual
+     */
+    private void reposition(int index, Individual individual, double individualKey) {
+        if (index > 0 && individualKey < keys[(index - 1) / 2]) {
+            siftUp(index, individual, individualKey);
+        } else {
+            siftDown(index, individual, individualKey);
+        }
+    }
+
+    private void siftUp(int index, Individual individual, double individualKey) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (individualKey >= keys[parent]) {
+                break;
+            }
+            place(index, individuals[parent], keys[parent]);
+            index = parent;
+        }
+        place(index, individual, individualKey);
+    }
+
+    private void siftDown(int index, Individual individual, double individualKey) {
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= individualKey) {
+                break;
+            }
+            place(index, individuals[child], keys[child]);
+            index = child;
+        }
+        place(index, individual, individualKey);
+    }
+
+    private void place(int index, Individual individual, double individualKey) {
+        individuals[index] = individual;
+        keys[index] = individualKey;
+        individual.setHeapIndex(index);
+    }
+}
@@ -1,13 +1,24 @@
 package model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Represents a path as a sequence of points.
+ * The points are stored as an immutable chain linked from the last point back to
+ * the first, so a path created from a prefix of another path shares that prefix
+ * instead of copying it. Each path also keeps its own index from point to chain
+ * node, built on first use, for constant-time cycle and membership checks.
  */
 public class Path {
-    private final List<Point> points;
+    private Node last;
+    private NodeIndex index; // Built lazily, since a shared prefix is not indexed yet
+    private Point trackedPoint; // Last point asked for by hasReachedFinalPoint, or null
+    private int trackedIndex; // Position of trackedPoint in the path, or -1
     private int cost;
     private Grid grid; // Added grid reference
 
@@ -15,7 +26,10 @@ public class Path {
      * Creates a new empty path.
      */
     public Path() {
-        this.points = new ArrayList<>();
+        this.last = null;
+        this.index = new NodeIndex();
+        this.trackedPoint = null;
+        this.trackedIndex = -1;
         this.cost = 0;
         this.grid = null;
     }
@@ -26,21 +40,28 @@ public class Path {
      * @param other The path to copy
      */
     public Path(Path other) {
-        this.points = new ArrayList<>(other.points);
+        this.last = other.last;
+        this.index = null;
+        this.trackedPoint = other.trackedPoint;
+        this.trackedIndex = other.trackedIndex;
         this.cost = other.cost;
         this.grid = other.grid;
     }
 
     /**
      * Creates a path from a prefix of an existing path.
+     * The prefix is shared with the original path, not copied.
      *
      * @param other        The original path
      * @param prefixLength The length of the prefix
      * @param grid         The grid for calculating costs
      */
     public Path(Path other, int prefixLength, Grid grid) {
-        this.points = new ArrayList<>(other.points.subList(0, Math.min(prefixLength, other.points.size())));
-        this.cost = calculateCost(grid);
+        this.last = other.nodeAt(Math.min(prefixLength, other.size()) - 1);
+        this.index = null;
+        this.trackedPoint = other.trackedPoint;
+        this.trackedIndex = other.trackedIndex < size() ? other.trackedIndex : -1;
+        this.cost = last == null ? 0 : last.prefixCost;
         this.grid = grid;
     }
 
@@ -49,34 +70,47 @@ public class Path {
      *
      * @param point The point to add
      * @param grid  The grid for calculating the edge cost
+     * @return True if the point closed a cycle that was cut out of the path, false otherwise
      */
-    public void addPoint(Point point, Grid grid) {
+    public boolean addPoint(Point point, Grid grid) {
         // Store the grid reference
         if (this.grid == null && grid != null) {
             this.grid = grid;
         }
 
-        if (!points.isEmpty()) {
-            Point lastPoint = points.get(points.size() - 1);
-            if (lastPoint.isAdjacent(point)) {
-                points.add(point);
-                cost += grid.getEdgeCost(lastPoint, point);
+        if (last != null) {
+            if (last.point.isAdjacent(point)) {
+                int edgeCost = grid.getEdgeCost(last.point, point);
+                cost += edgeCost;
 
                 // Check if the new point creates a cycle and remove it if it does
-                int index = points.indexOf(point);
-                if (index < points.size() - 1) {
-                    // A cycle is found, remove it
-                    List<Point> cyclePoints = new ArrayList<>(points.subList(index, points.size() - 1));
-                    for (int i = 0; i < cyclePoints.size() - 1; i++) {
-                        cost -= grid.getEdgeCost(cyclePoints.get(i), cyclePoints.get(i + 1));
+                Node previous = findNode(point);
+                if (previous != null) {
+                    // A cycle is found, cut the path back to the earlier visit of the point
+                    cost -= last.prefixCost - previous.prefixCost;
+                    for (Node node = last; node != previous; node = node.previous) {
+                        index.remove(node.point);
+                    }
+                    last = previous;
+                    if (trackedIndex > last.index) {
+                        trackedIndex = -1;
+                    }
+                    return true;
+                } else {
+                    last = new Node(point, last, last.prefixCost + edgeCost);
+                    index.put(last);
+                    if (point.equals(trackedPoint)) {
+                        trackedIndex = last.index;
                     }
-                    points.subList(index, points.size() - 1).clear();
                 }
             }
         } else {
             // First point in the path
-            points.add(point);
+            last = new Node(point, null, 0);
+            index().put(last);
+            trackedIndex = point.equals(trackedPoint) ? 0 : -1;
         }
+        return false;
     }
 
     /**
@@ -85,7 +119,20 @@ public class Path {
      * @return The list of points
      */
     public List<Point> getPoints() {
-        return new ArrayList<>(points);
+        return new ArrayList<>(Arrays.asList(toArray()));
+    }
+
+    /**
+     * Gets the points in the path as a new array, without the list around it.
+     *
+     * @return The points, first to last
+     */
+    public Point[] toArray() {
+        Point[] points = new Point[size()];
+        for (Node node = last; node != null; node = node.previous) {
+            points[node.index] = node.point;
+        }
+        return points;
     }
 
     /**
@@ -94,7 +141,7 @@ public class Path {
      * @return The last point, or null if the path is empty
      */
     public Point getLastPoint() {
-        return points.isEmpty() ? null : points.get(points.size() - 1);
+        return last == null ? null : last.point;
     }
 
     /**
@@ -103,7 +150,7 @@ public class Path {
      * @return The length
      */
     public int getLength() {
-        return points.size() - 1;
+        return size() - 1;
     }
 
     /**
@@ -125,17 +172,51 @@ public class Path {
     }
 
     /**
-     * Calculates the cost of the path based on the grid.
+     * Gets the number of points in the path.
+     *
+     * @return The number of points
+     */
+    private int size() {
+        return last == null ? 0 : last.index + 1;
+    }
+
+    /**
+     * Gets the node holding the point at the given position.
      *
-     * @param grid The grid
-     * @return The calculated cost
+     * @param index The position, starting at 0
+     * @return The node, or null if the index is negative
      */
-    private int calculateCost(Grid grid) {
-        int totalCost = 0;
-        for (int i = 0; i < points.size() - 1; i++) {
-            totalCost += grid.getEdgeCost(points.get(i), points.get(i + 1));
+    private Node nodeAt(int index) {
+        Node node = last;
+        while (node != null && node.index > index) {
+            node = node.previous;
         }
-        return totalCost;
+        return node;
+    }
+
+    /**
+     * Finds the node holding the given point.
+     *
+     * @param point The point to look for
+     * @return The node, or null if the path does not contain the point
+     */
+    private Node findNode(Point point) {
+        return index().get(point);
+    }
+
+    /**
+     * Gets the point index of this path, building it from the chain if needed.
+     *
+     * @return The point index
+     */
+    private NodeIndex index() {
+        if (index == null) {
+            index = new NodeIndex();
+            for (Node node = last; node != null; node = node.previous) {
+                index.put(node);
+            }
+        }
+        return index;
     }
 
     /**
@@ -145,21 +226,256 @@ public class Path {
      * @return True if the path contains the point, false otherwise
      */
     public boolean containsPoint(Point point) {
-        return points.contains(point);
+        return findNode(point) != null;
     }
 
     /**
      * Checks if this path has reached the final point.
+     * The position of the final point is then kept up to date as the path changes
+     * and handed down to paths created from a prefix of this one, so repeated
+     * checks neither search nor build the point index.
      *
      * @param finalPoint The final point
      * @return True if the path has reached the final point, false otherwise
      */
     public boolean hasReachedFinalPoint(Point finalPoint) {
-        return !points.isEmpty() && points.contains(finalPoint);
+        if (last == null) {
+            return false;
+        }
+        if (!finalPoint.equals(trackedPoint)) {
+            Node node = findNode(finalPoint);
+            trackedPoint = finalPoint;
+            trackedIndex = node == null ? -1 : node.index;
+        }
+        return trackedIndex >= 0;
+    }
+
+    /**
+     * Appends the points of the path to a builder, in the same format as the list
+     * of {@link #getPoints()}, without copying them into a list.
+     *
+     * @param builder The builder
+     * @return The builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        Point[] points = toArray();
+        builder.append('[');
+        for (int i = 0; i < points.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            points[i].appendTo(builder);
+        }
+        return builder.append(']');
+    }
+
+    /**
+     * Writes the path compactly, for a checkpoint: the cell id of the first point,
+     * then the difference to the cell id of each next point, which for a step is
+     * 1 or the grid width and fits in one or two bytes. The cost is written too,
+     * since after a cycle is cut it still counts the step that closed the cycle and
+     * cannot be recomputed from the points.
+     *
+     * @param out The output
+     * @param grid The grid of the path
+     * @throws IOException If writing fails
+     */
+    void writeTo(DataOutput out, Grid grid) throws IOException {
+        out.writeBoolean(this.grid != null);
+        Point[] points = toArray();
+        writeVarInt(out, points.length);
+        int previousCell = 0;
+        for (Point point : points) {
+            int cell = grid.cellId(point.getX(), point.getY());
+            writeVarInt(out, zigZag(cell - previousCell));
+            previousCell = cell;
+        }
+        writeVarInt(out, cost);
+    }
+
+    /**
+     * Reads a path written by {@link #writeTo(DataOutput, Grid)}. Its points are
+     * the canonical points of the grid.
+     *
+     * @param in The input
+     * @param grid The grid of the path
+     * @return The path
+     * @throws IOException If reading fails
+     */
+    static Path readFrom(DataInput in, Grid grid) throws IOException {
+        boolean hasGrid = in.readBoolean();
+        int length = readVarInt(in);
+        Path path = new Path();
+        int cell = 0;
+        for (int i = 0; i < length; i++) {
+            cell += unZigZag(readVarInt(in));
+            path.addPoint(grid.pointAtCell(cell), i == 0 ? null : grid);
+        }
+        path.cost = readVarInt(in);
+        if (hasGrid) {
+            path.grid = grid; // A one-point prefix of a longer path keeps the grid
+        }
+        return path;
+    }
+
+    /**
+     * Writes a non-negative integer in 7-bit groups, low group first.
+     *
+     * @param out The output
+     * @param value The value
+     * @throws IOException If writing fails
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an integer written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param in The input
+     * @return The value
+     * @throws IOException If reading fails
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
     }
 
     @Override
     public String toString() {
-        return points.toString();
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Immutable link of the point chain. Nodes are never modified once created,
+     * so any number of paths can share them.
+     */
+    private static final class Node {
+        private final Point point;
+        private final Node previous;
+        private final int index;
+        private final int prefixCost;
+
+        private Node(Point point, Node previous, int prefixCost) {
+            this.point = point;
+            this.previous = previous;
+            this.index = previous == null ? 0 : previous.index + 1;
+            this.prefixCost = prefixCost;
+        }
+    }
+
+    /**
+     * Open-addressed hash table from point coordinates to the chain node holding
+     * that point. Uses linear probing with backward-shift deletion, so removing
+     * the points of an erased cycle leaves no tombstones behind.
+     */
+    private static final class NodeIndex {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys;
+        private Node[] nodes;
+        private int size;
+
+        private NodeIndex() {
+            this.keys = new long[INITIAL_CAPACITY];
+            this.nodes = new Node[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        private static long key(Point point) {
+            return ((long) point.getX() << 32) | (point.getY() & 0xFFFFFFFFL);
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+        }
+
+        private Node get(Point point) {
+            long key = key(point);
+            int mask = keys.length - 1;
+            for (int i = slot(key); nodes[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return nodes[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(Node node) {
+            if (2 * (size + 1) > keys.length) {
+                resize(2 * keys.length);
+            }
+            long key = key(node.point);
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (nodes[i] != null) {
+                if (keys[i] == key) {
+                    nodes[i] = node;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            size++;
+        }
+
+        private void remove(Point point) {
+            long key = key(point);
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (nodes[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (nodes[i] == null) {
+                return;
+            }
+
+            // Shift back any following entries whose probe sequence passes over the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; nodes[j] != null; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    nodes[hole] = nodes[j];
+                    hole = j;
+                }
+            }
+            nodes[hole] = null;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Node[] oldNodes = nodes;
+            keys = new long[capacity];
+            nodes = new Node[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldNodes[i] != null) {
+                    put(oldNodes[i]);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
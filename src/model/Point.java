@@ -70,6 +70,16 @@ public class Point {
         return 31 * x + y;
     }
 
+    /**
+     * Appends the point to a builder in the format of {@link #toString()}.
+     *
+     * @param builder The builder
+     * @return The builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return builder.append('(').append(x).append(", ").append(y).append(')');
+    }
+
     @Override
     public String toString() {
         return "(" + x + ", " + y + ")";
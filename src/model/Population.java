@@ -1,19 +1,39 @@
 package model;
 
+import util.RandomSource;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
+import java.util.function.Consumer;
 
 /**
  * Manages a collection of individuals in the simulation.
+ * Every individual knows its slot in the list, so a dead individual is removed
+ * in constant time by moving the last individual into its slot.
+ * The living individuals are also kept in two indexed heaps, one of individuals
+ * that reached the final point ordered by path cost and one of the others ordered
+ * by comfort, so the current best is always at hand. The best individual overall
+ * is checked on every change and kept as a snapshot.
  */
 public class Population {
+    private static final int EPIDEMIC_SURVIVORS = 5; // Individuals that always survive an epidemic
+
     private final List<Individual> individuals;
     private final Grid grid;
     private final int maxPopulation;
     private final double comfortSensitivity;
-    private Individual bestIndividualOverall;
+    private final Point finalPoint;
+    private final IndividualHeap finishers; // Reached the final point, lowest cost first
+    private final IndividualHeap others; // Did not reach the final point, highest comfort first
+    private Individual bestIndividualOverall; // Snapshot of the best individual ever seen
+    private boolean bestOverallReachedFinal;
+    private Consumer<Individual> deathListener;
+    private int maxSize; // Largest size reached
+    private long epidemics;
+    private long epidemicDeaths;
 
     /**
      * Creates a new population with the given grid and parameters.
@@ -27,19 +47,126 @@ public class Population {
      * @param initialTime The initial time of the simulation
      */
     public Population(Grid grid, int initialPopulation, int maxPopulation,
-                      double comfortSensitivity, double deathMean, Random random, double initialTime) {
+                      double comfortSensitivity, double deathMean, RandomSource random, double initialTime) {
         this.individuals = new ArrayList<>();
         this.grid = grid;
         this.maxPopulation = maxPopulation;
         this.comfortSensitivity = comfortSensitivity;
+        this.finalPoint = grid.getFinalPoint();
+        this.finishers = new IndividualHeap(individual -> individual.getPath().getCost());
+        this.others = new IndividualHeap(individual -> -individual.getComfort());
         this.bestIndividualOverall = null;
+        this.bestOverallReachedFinal = false;
+        this.deathListener = individual -> { };
+        this.epidemics = 0;
+        this.epidemicDeaths = 0;
 
         // Create initial population
         Point initialPoint = grid.getInitialPoint();
         for (int i = 0; i < initialPopulation; i++) {
             Individual individual = new Individual(initialPoint, initialTime, deathMean, comfortSensitivity, random);
+            individual.setPopulationIndex(individuals.size());
             individuals.add(individual);
+            track(individual);
+        }
+        this.maxSize = individuals.size();
+    }
+
+    /**
+     * Creates an empty population, to be filled from a checkpoint.
+     */
+    private Population(Grid grid, int maxPopulation, double comfortSensitivity) {
+        this.individuals = new ArrayList<>();
+        this.grid = grid;
+        this.maxPopulation = maxPopulation;
+        this.comfortSensitivity = comfortSensitivity;
+        this.finalPoint = grid.getFinalPoint();
+        this.finishers = new IndividualHeap(individual -> individual.getPath().getCost());
+        this.others = new IndividualHeap(individual -> -individual.getComfort());
+        this.deathListener = individual -> { };
+    }
+
+    /**
+     * Writes the state of the population, for a checkpoint: the individuals in
+     * slot order, the order of the best-individual heaps, the best individual
+     * overall and the counters.
+     *
+     * @param out The output
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(individuals.size());
+        for (Individual individual : individuals) {
+            individual.writeTo(out, grid);
+        }
+        writeHeapOrder(out, finishers);
+        writeHeapOrder(out, others);
+
+        out.writeBoolean(bestIndividualOverall != null);
+        if (bestIndividualOverall != null) {
+            bestIndividualOverall.writeTo(out, grid);
+            out.writeBoolean(bestOverallReachedFinal);
         }
+        out.writeInt(maxSize);
+        out.writeLong(epidemics);
+        out.writeLong(epidemicDeaths);
+    }
+
+    /**
+     * Reads a population written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input
+     * @param grid The grid
+     * @param maxPopulation The maximum population size (νmax)
+     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @return The population
+     * @throws IOException If reading fails
+     */
+    public static Population readFrom(DataInput in, Grid grid, int maxPopulation,
+                                      double comfortSensitivity) throws IOException {
+        Population population = new Population(grid, maxPopulation, comfortSensitivity);
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            Individual individual = Individual.readFrom(in, grid);
+            individual.setPopulationIndex(i);
+            population.individuals.add(individual);
+        }
+        population.finishers.restore(population.readHeapOrder(in));
+        population.others.restore(population.readHeapOrder(in));
+
+        if (in.readBoolean()) {
+            population.bestIndividualOverall = Individual.readFrom(in, grid);
+            population.bestOverallReachedFinal = in.readBoolean();
+        }
+        population.maxSize = in.readInt();
+        population.epidemics = in.readLong();
+        population.epidemicDeaths = in.readLong();
+        return population;
+    }
+
+    private static void writeHeapOrder(DataOutput out, IndividualHeap heap) throws IOException {
+        out.writeInt(heap.size());
+        for (int i = 0; i < heap.size(); i++) {
+            out.writeInt(heap.get(i).getPopulationIndex());
+        }
+    }
+
+    private Individual[] readHeapOrder(DataInput in) throws IOException {
+        Individual[] order = new Individual[in.readInt()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = individuals.get(in.readInt());
+        }
+        return order;
+    }
+
+    /**
+     * Sets the listener told about every individual that dies, right when it is
+     * killed by an epidemic or by its death event.
+     *
+     * @param deathListener The listener
+     */
+    public void setDeathListener(Consumer<Individual> deathListener) {
+        this.deathListener = deathListener;
     }
 
     /**
@@ -51,6 +178,27 @@ public class Population {
         return new ArrayList<>(individuals);
     }
 
+    /**
+     * Gets the individual in a slot of the population.
+     *
+     * @param index The slot
+     * @return The individual
+     */
+    public Individual get(int index) {
+        return individuals.get(index);
+    }
+
+    /**
+     * Gets the slot of an individual in the population.
+     *
+     * @param individual The individual
+     * @return The slot, or -1 if the individual is not in the population
+     */
+    public int indexOf(Individual individual) {
+        int index = individual.getPopulationIndex();
+        return index >= 0 && index < individuals.size() && individuals.get(index) == individual ? index : -1;
+    }
+
     /**
      * Gets the number of individuals in the population.
      *
@@ -60,79 +208,131 @@ public class Population {
         return individuals.size();
     }
 
+    /**
+     * Gets the largest size the population has reached, counting the individual
+     * that triggers an epidemic.
+     *
+     * @return The largest population size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of epidemics so far.
+     *
+     * @return The number of epidemics
+     */
+    public long getEpidemics() {
+        return epidemics;
+    }
+
+    /**
+     * Gets the number of individuals killed by epidemics so far.
+     *
+     * @return The number of epidemic deaths
+     */
+    public long getEpidemicDeaths() {
+        return epidemicDeaths;
+    }
+
     /**
      * Gets the best individual in the current population.
      *
      * @return The best individual, or null if the population is empty
      */
     public Individual getBestIndividual() {
-        if (individuals.isEmpty()) {
-            return bestIndividualOverall;
-        }
-
-        List<Individual> aliveIndividuals = getAliveIndividuals();
-        if (aliveIndividuals.isEmpty()) {
-            return bestIndividualOverall;
+        // Individuals that reached the final point beat all others
+        Individual bestCurrent = finishers.peek();
+        if (bestCurrent == null) {
+            bestCurrent = others.peek();
         }
+        return bestCurrent != null ? bestCurrent : bestIndividualOverall;
+    }
 
-        // Check if any individual has reached the final point
-        Point finalPoint = grid.getFinalPoint();
-        List<Individual> finishers = new ArrayList<>();
+    /**
+     * Gets the best individual over the entire simulation, as it was at the
+     * moment it was best.
+     *
+     * @return The best overall individual
+     */
+    public Individual getBestIndividualOverall() {
+        return bestIndividualOverall;
+    }
 
-        for (Individual individual : aliveIndividuals) {
-            if (individual.hasReachedFinalPoint(finalPoint)) {
-                finishers.add(individual);
-            }
-        }
+    /**
+     * Checks if any individual has reached the final point so far.
+     *
+     * @return True if the final point has been reached, false otherwise
+     */
+    public boolean isFinalPointReached() {
+        return bestOverallReachedFinal;
+    }
 
-        Individual bestCurrent;
-        if (!finishers.isEmpty()) {
-            // Sort finishers by path cost (lowest first)
-            bestCurrent = finishers.stream()
-                    .min(Comparator.comparingInt(i -> i.getPath().getCost()))
-                    .orElse(null);
+    /**
+     * Updates the population after the path and comfort of a living individual changed.
+     *
+     * @param individual The individual that changed, e.g. after a move
+     */
+    public void update(Individual individual) {
+        boolean reachedFinal = individual.hasReachedFinalPoint(finalPoint);
+        IndividualHeap heap = reachedFinal ? finishers : others;
+        if (heap.contains(individual)) {
+            heap.update(individual);
         } else {
-            // Sort by comfort (highest first)
-            bestCurrent = aliveIndividuals.stream()
-                    .max(Comparator.comparingDouble(Individual::getComfort))
-                    .orElse(null);
+            untrack(individual);
+            heap.add(individual);
         }
+        considerForBestOverall(individual, reachedFinal);
+    }
 
-        // Update best individual overall if needed
-        if (bestIndividualOverall == null) {
-            bestIndividualOverall = bestCurrent;
-        } else {
-            boolean bestHasReachedFinal = bestIndividualOverall.hasReachedFinalPoint(finalPoint);
-            boolean currentHasReachedFinal = bestCurrent.hasReachedFinalPoint(finalPoint);
-
-            if (currentHasReachedFinal && !bestHasReachedFinal) {
-                bestIndividualOverall = bestCurrent;
-            } else if (currentHasReachedFinal && bestHasReachedFinal) {
-                // Both reached final, compare costs
-                if (bestCurrent.getPath().getCost() < bestIndividualOverall.getPath().getCost()) {
-                    bestIndividualOverall = bestCurrent;
-                }
-            } else if (!currentHasReachedFinal && !bestHasReachedFinal) {
-                // Neither reached final, compare comfort
-                if (bestCurrent.getComfort() > bestIndividualOverall.getComfort()) {
-                    bestIndividualOverall = bestCurrent;
-                }
-            }
-            // If best reached final but current didn't, keep best
-        }
+    /**
+     * Adds a living individual to the best-individual heaps.
+     *
+     * @param individual The individual
+     */
+    private void track(Individual individual) {
+        boolean reachedFinal = individual.hasReachedFinalPoint(finalPoint);
+        (reachedFinal ? finishers : others).add(individual);
+        considerForBestOverall(individual, reachedFinal);
+    }
 
-        return bestCurrent;
+    /**
+     * Removes an individual from whichever best-individual heap holds it.
+     *
+     * @param individual The individual
+     */
+    private void untrack(Individual individual) {
+        if (finishers.contains(individual)) {
+            finishers.remove(individual);
+        } else if (others.contains(individual)) {
+            others.remove(individual);
+        }
     }
 
     /**
-     * Gets the best individual over the entire simulation.
+     * Replaces the best individual overall with a snapshot of the given individual if it is better.
+     * Reaching the final point beats not reaching it; then lower cost, or higher comfort, wins.
      *
-     * @return The best overall individual
+     * @param individual The candidate individual
+     * @param reachedFinal Whether the candidate has reached the final point
      */
-    public Individual getBestIndividualOverall() {
-        // Update with the current best
-        getBestIndividual();
-        return bestIndividualOverall;
+    private void considerForBestOverall(Individual individual, boolean reachedFinal) {
+        boolean better;
+        if (bestIndividualOverall == null) {
+            better = true;
+        } else if (reachedFinal != bestOverallReachedFinal) {
+            better = reachedFinal;
+        } else if (reachedFinal) {
+            better = individual.getPath().getCost() < bestIndividualOverall.getPath().getCost();
+        } else {
+            better = individual.getComfort() > bestIndividualOverall.getComfort();
+        }
+
+        if (better) {
+            bestIndividualOverall = individual.snapshot();
+            bestOverallReachedFinal = reachedFinal;
+        }
     }
 
     /**
@@ -142,7 +342,12 @@ public class Population {
      * @return True if an epidemic occurred, false otherwise
      */
     public boolean addIndividual(Individual individual) {
+        individual.setPopulationIndex(individuals.size());
         individuals.add(individual);
+        track(individual);
+        if (individuals.size() > maxSize) {
+            maxSize = individuals.size();
+        }
 
         // Check if population exceeds maximum size
         if (individuals.size() > maxPopulation) {
@@ -167,43 +372,132 @@ public class Population {
         return alive;
     }
 
+    /**
+     * Kills an individual and removes it from the population in constant time.
+     *
+     * @param individual The individual to kill
+     */
+    public void kill(Individual individual) {
+        if (individual.isDead()) {
+            return;
+        }
+
+        individual.kill();
+        if (individual.getPopulationIndex() >= 0) {
+            removeAt(individual.getPopulationIndex());
+        }
+        deathListener.accept(individual);
+    }
+
+    /**
+     * Removes the individual in the given slot by moving the last individual into it.
+     *
+     * @param index The slot to empty
+     */
+    private void removeAt(int index) {
+        Individual removed = individuals.get(index);
+        untrack(removed);
+        Individual last = individuals.remove(individuals.size() - 1);
+        if (last != removed) {
+            individuals.set(index, last);
+            last.setPopulationIndex(index);
+        }
+        removed.setPopulationIndex(-1);
+    }
+
     /**
      * Removes dead individuals from the population.
+     * Only needed for individuals killed directly through {@link Individual#kill()}
+     * instead of {@link #kill(Individual)}.
      */
     public void removeDeadIndividuals() {
-        individuals.removeIf(Individual::isDead);
+        for (int i = individuals.size() - 1; i >= 0; i--) {
+            Individual individual = individuals.get(i);
+            if (individual.isDead()) {
+                removeAt(i);
+                deathListener.accept(individual);
+            }
+        }
     }
 
     /**
      * Simulates an epidemic in the population.
+     * The five individuals with the highest comfort always survive and every other
+     * individual survives with a probability equal to its comfort. The five are found
+     * in one linear pass and the survivors are compacted in place.
      *
      * @param random The random number generator
      */
-    public void simulateEpidemic(Random random) {
-        if (individuals.size() <= 5) {
+    public void simulateEpidemic(RandomSource random) {
+        if (individuals.size() <= EPIDEMIC_SURVIVORS) {
             return; // Not enough individuals for an epidemic
         }
 
-        // Sort individuals by comfort (highest first)
-        individuals.sort(Comparator.comparingDouble(Individual::getComfort).reversed());
-
-        // The five individuals with the highest comfort always survive
-        List<Individual> survivors = new ArrayList<>(individuals.subList(0, 5));
+        epidemics++;
+        int[] fittest = findFittest();
 
-        // For the rest, survival depends on comfort
-        for (int i = 5; i < individuals.size(); i++) {
+        // Draw survival in place, moving survivors to the front in their current order
+        int size = individuals.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
             Individual individual = individuals.get(i);
-            double survivalProbability = individual.getComfort();
-
-            if (random.nextDouble() <= survivalProbability) {
-                survivors.add(individual);
+            if (contains(fittest, i) || random.nextDouble() <= individual.getComfort()) {
+                individuals.set(kept, individual);
+                individual.setPopulationIndex(kept);
+                kept++;
             } else {
                 individual.kill();
+                individual.setPopulationIndex(-1);
+                untrack(individual);
+                deathListener.accept(individual);
+            }
+        }
+        individuals.subList(kept, size).clear();
+        epidemicDeaths += size - kept;
+    }
+
+    /**
+     * Finds the slots of the individuals with the highest comfort, keeping the
+     * earlier slot on ties.
+     *
+     * @return The slots, best first
+     */
+    private int[] findFittest() {
+        int[] fittest = new int[EPIDEMIC_SURVIVORS];
+        int count = 0;
+        for (int i = 0; i < individuals.size(); i++) {
+            double comfort = individuals.get(i).getComfort();
+            if (count == fittest.length) {
+                if (comfort <= individuals.get(fittest[count - 1]).getComfort()) {
+                    continue;
+                }
+                count--; // Drop the weakest of the five
             }
+
+            // Insertion into the short sorted array
+            int j = count++;
+            while (j > 0 && individuals.get(fittest[j - 1]).getComfort() < comfort) {
+                fittest[j] = fittest[j - 1];
+                j--;
+            }
+            fittest[j] = i;
         }
+        return fittest;
+    }
 
-        // Update the population
-        individuals.clear();
-        individuals.addAll(survivors);
+    /**
+     * Checks if a slot is among the given slots.
+     *
+     * @param slots The slots
+     * @param slot The slot to look for
+     * @return True if the slot is among the slots, false otherwise
+     */
+    private static boolean contains(int[] slots, int slot) {
+        for (int s : slots) {
+            if (s == slot) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,231 @@
+package simulation;
+
+import model.Individual;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Base class for PEC implementations. Stamps events with their insertion order,
+ * counts processed events and keeps track of stale events, leaving the ordered
+ * storage to the subclasses.
+ * Every individual counts its events in the container, so when it dies the number
+ * of events that became stale is known exactly. Once stale events exceed half of
+ * the stored events the container is purged, which costs amortised O(1) per
+ * stale event.
+ */
+public abstract class AbstractPEC implements PEC {
+    private static final double STALE_PURGE_RATIO = 0.5;
+    private static final int MIN_PURGE_SIZE = 64;
+
+    private long processedEvents;
+    private long nextSequence;
+    private int maxSize;
+    private int staleEvents;
+    private long staleEventsSkipped;
+    private long staleEventsPurged;
+
+    /**
+     * Creates a new empty PEC.
+     */
+    protected AbstractPEC() {
+        this.processedEvents = 0;
+        this.nextSequence = 0;
+        this.maxSize = 0;
+        this.staleEvents = 0;
+        this.staleEventsSkipped = 0;
+        this.staleEventsPurged = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Events of an individual that is already dead are dropped and counted as skipped.
+     */
+    @Override
+    public final void addEvent(Event event) {
+        if (event.isStale()) {
+            staleEventsSkipped++;
+            return;
+        }
+
+        event.setSequence(nextSequence++);
+        event.getIndividual().incrementPendingEvents();
+        insert(event);
+        int size = size();
+        if (size > maxSize) {
+            maxSize = size;
+        }
+    }
+
+    @Override
+    public final Event peekEvent() {
+        skipStaleEvents();
+        return peekFirst();
+    }
+
+    @Override
+    public final Event nextEvent() {
+        skipStaleEvents();
+        Event event = pollFirst();
+        if (event != null) {
+            event.getIndividual().decrementPendingEvents();
+            processedEvents++;
+        }
+        return event;
+    }
+
+    @Override
+    public final void discardEventsOf(Individual individual) {
+        staleEvents += individual.getPendingEvents();
+
+        int stored = storedSize();
+        if (stored >= MIN_PURGE_SIZE && staleEvents > STALE_PURGE_RATIO * stored) {
+            int purged = purgeStaleEvents();
+            staleEvents -= purged;
+            staleEventsPurged += purged;
+        }
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public final int size() {
+        return storedSize() - staleEvents;
+    }
+
+    @Override
+    public final int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public final long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    @Override
+    public final long getStaleEventsSkipped() {
+        return staleEventsSkipped;
+    }
+
+    @Override
+    public final long getStaleEventsPurged() {
+        return staleEventsPurged;
+    }
+
+    /**
+     * Gets the live events, in the order they come out, e.g. for a checkpoint.
+     *
+     * @return The live events
+     */
+    final List<Event> getLiveEvents() {
+        List<Event> live = new ArrayList<>(size());
+        forEachStored(event -> {
+            if (!event.isStale()) {
+                live.add(event);
+            }
+        });
+        live.sort(null);
+        return live;
+    }
+
+    /**
+     * Gets the sequence number the next added event will get.
+     *
+     * @return The next sequence number
+     */
+    final long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Replaces the contents and counters of the PEC, e.g. from a checkpoint.
+     * The events keep the sequence numbers they already have.
+     *
+     * @param events The live events
+     * @param nextSequence The sequence number of the next added event
+     * @param processedEvents The number of processed events
+     * @param maxSize The largest number of live events so far
+     * @param staleEventsSkipped The number of skipped stale events so far
+     * @param staleEventsPurged The number of purged stale events so far
+     */
+    final void restore(List<Event> events, long nextSequence, long processedEvents, int maxSize,
+                       long staleEventsSkipped, long staleEventsPurged) {
+        clearStored();
+        this.staleEvents = 0;
+        for (Event event : events) {
+            event.getIndividual().incrementPendingEvents();
+            insert(event);
+        }
+        this.nextSequence = nextSequence;
+        this.processedEvents = processedEvents;
+        this.maxSize = maxSize;
+        this.staleEventsSkipped = staleEventsSkipped;
+        this.staleEventsPurged = staleEventsPurged;
+    }
+
+    /**
+     * Drops stale events from the front of the container.
+     */
+    private void skipStaleEvents() {
+        Event event;
+        while ((event = peekFirst()) != null && event.isStale()) {
+            pollFirst();
+            event.getIndividual().decrementPendingEvents();
+            staleEvents--;
+            staleEventsSkipped++;
+        }
+    }
+
+    /**
+     * Stores an event in order.
+     *
+     * @param event The event
+     */
+    protected abstract void insert(Event event);
+
+    /**
+     * Gets the first stored event without removing it.
+     *
+     * @return The first event, or null if nothing is stored
+     */
+    protected abstract Event peekFirst();
+
+    /**
+     * Removes and returns the first stored event.
+     *
+     * @return The first event, or null if nothing is stored
+     */
+    protected abstract Event pollFirst();
+
+    /**
+     * Gets the number of stored events, stale ones included.
+     *
+     * @return The number of stored events
+     */
+    protected abstract int storedSize();
+
+    /**
+     * Passes every stored event, stale ones included, to an action, in no particular order.
+     *
+     * @param action The action
+     */
+    protected abstract void forEachStored(Consumer<Event> action);
+
+    /**
+     * Removes every stored event.
+     */
+    protected abstract void clearStored();
+
+    /**
+     * Removes every stale event while keeping the order of the others.
+     * Implementations must call {@link Individual#decrementPendingEvents()} for each removed event.
+     *
+     * @return The number of removed events
+     */
+    protected abstract int purgeStaleEvents();
+}
@@ -0,0 +1,277 @@
+package simulation;
+
+import java.util.function.Consumer;
+
+/**
+ * Pending Event Container backed by a calendar queue (Brown, 1988).
+ * Events are hashed by time into buckets of fixed width that together cover one
+ * "year"; the queue scans the buckets in time order like the days of a calendar.
+ * The number of buckets follows the number of pending events and the bucket width
+ * is re-estimated from the earliest events on every resize, which gives amortised
+ * O(1) insertion and removal when the event times are spread like the exponential
+ * clocks of the simulation.
+ * Ties are broken by insertion order, so events come out in exactly the same order
+ * as from {@link HeapPEC}.
+ */
+public class CalendarPEC extends AbstractPEC {
+    private static final int MIN_BUCKETS = 16;
+    private static final int WIDTH_SAMPLE_SIZE = 25;
+    private static final double DEFAULT_BUCKET_WIDTH = 1.0;
+
+    private Bucket[] buckets;
+    private double bucketWidth;
+    private long currentDay; // Index of the bucket interval being scanned, counted from time 0
+    private int size;
+
+    /**
+     * Creates a new empty PEC.
+     */
+    public CalendarPEC() {
+        this.buckets = newBuckets(MIN_BUCKETS);
+        this.bucketWidth = DEFAULT_BUCKET_WIDTH;
+        this.currentDay = 0;
+        this.size = 0;
+    }
+
+    @Override
+    protected void insert(Event event) {
+        store(event);
+        size++;
+
+        if (size > 2 * buckets.length) {
+            resize(2 * buckets.length);
+        }
+    }
+
+    @Override
+    protected Event peekFirst() {
+        if (size == 0) {
+            return null;
+        }
+        return buckets[locateNextBucket()].peek();
+    }
+
+    @Override
+    protected Event pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+
+        Event event = buckets[locateNextBucket()].poll();
+        size--;
+        shrinkIfSparse();
+        return event;
+    }
+
+    @Override
+    protected int storedSize() {
+        return size;
+    }
+
+    @Override
+    protected void forEachStored(Consumer<Event> action) {
+        for (Bucket bucket : buckets) {
+            for (int i = 0; i < bucket.size; i++) {
+                action.accept(bucket.events[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void clearStored() {
+        this.buckets = newBuckets(MIN_BUCKETS);
+        this.bucketWidth = DEFAULT_BUCKET_WIDTH;
+        this.currentDay = 0;
+        this.size = 0;
+    }
+
+    @Override
+    protected int purgeStaleEvents() {
+        int purged = 0;
+        for (Bucket bucket : buckets) {
+            purged += bucket.removeStale();
+        }
+
+        size -= purged;
+        shrinkIfSparse();
+        return purged;
+    }
+
+    /**
+     * Halves the number of buckets if there are too few events for them.
+     */
+    private void shrinkIfSparse() {
+        if (buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+            resize(Math.max(MIN_BUCKETS, Integer.highestOneBit(Math.max(1, size))));
+        }
+    }
+
+    /**
+     * Puts an event into its bucket without touching the size.
+     *
+     * @param event The event
+     */
+    private void store(Event event) {
+        long day = dayOf(event);
+        if (size == 0 || day < currentDay) {
+            currentDay = day; // The new event is the earliest one
+        }
+        buckets[bucketOf(day)].add(event);
+    }
+
+    /**
+     * Finds the bucket holding the earliest event, advancing the current day past
+     * empty days. The PEC must not be empty.
+     *
+     * @return The index of the bucket
+     */
+    private int locateNextBucket() {
+        // Scan one year of buckets starting at the current day
+        for (int i = 0; i < buckets.length; i++) {
+            int index = bucketOf(currentDay);
+            Event first = buckets[index].peek();
+            if (first != null && dayOf(first) == currentDay) {
+                return index;
+            }
+            currentDay++;
+        }
+
+        // Nothing due within a year: jump straight to the earliest event
+        int earliest = -1;
+        for (int index = 0; index < buckets.length; index++) {
+            Event first = buckets[index].peek();
+            if (first != null && (earliest < 0 || first.compareTo(buckets[earliest].peek()) < 0)) {
+                earliest = index;
+            }
+        }
+        currentDay = dayOf(buckets[earliest].peek());
+        return earliest;
+    }
+
+    /**
+     * Rebuilds the calendar with the given number of buckets and a bucket width
+     * estimated from the earliest pending events.
+     *
+     * @param bucketCount The new number of buckets
+     */
+    private void resize(int bucketCount) {
+        Event[] events = new Event[size];
+        int count = 0;
+        for (Bucket bucket : buckets) {
+            for (int i = 0; i < bucket.size; i++) {
+                events[count++] = bucket.events[i];
+            }
+        }
+
+        bucketWidth = estimateBucketWidth(events);
+        buckets = newBuckets(bucketCount);
+        size = 0;
+        for (Event event : events) {
+            store(event);
+            size++;
+        }
+    }
+
+    /**
+     * Estimates the bucket width as three times the average gap between the
+     * earliest events, so that a bucket holds a few events on average.
+     *
+     * @param events The pending events
+     * @return The bucket width
+     */
+    private double estimateBucketWidth(Event[] events) {
+        // Keep the smallest times in a small sorted array, in one linear pass
+        double[] earliest = new double[Math.min(WIDTH_SAMPLE_SIZE, events.length)];
+        int count = 0;
+        for (Event event : events) {
+            double time = event.getTime();
+            if (count < earliest.length) {
+                count++;
+            } else if (time >= earliest[count - 1]) {
+                continue;
+            }
+            int i = count - 1;
+            while (i > 0 && earliest[i - 1] > time) {
+                earliest[i] = earliest[i - 1];
+                i--;
+            }
+            earliest[i] = time;
+        }
+
+        if (count < 2) {
+            return bucketWidth;
+        }
+        double averageGap = (earliest[count - 1] - earliest[0]) / (count - 1);
+        return averageGap > 0 ? 3 * averageGap : bucketWidth;
+    }
+
+    private long dayOf(Event event) {
+        return (long) Math.floor(event.getTime() / bucketWidth);
+    }
+
+    private int bucketOf(long day) {
+        return (int) Math.floorMod(day, (long) buckets.length);
+    }
+
+    private static Bucket[] newBuckets(int count) {
+        Bucket[] buckets = new Bucket[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    /**
+     * Events of one bucket, sorted from last to first so the earliest is removed from the end.
+     */
+    private static final class Bucket {
+        private Event[] events = new Event[4];
+        private int size;
+
+        private Event peek() {
+            return size == 0 ? null : events[size - 1];
+        }
+
+        private Event poll() {
+            Event event = events[--size];
+            events[size] = null;
+            return event;
+        }
+
+        private void add(Event event) {
+            if (size == events.length) {
+                Event[] grown = new Event[2 * size];
+                System.arraycopy(events, 0, grown, 0, size);
+                events = grown;
+            }
+
+            // Shift the earlier events towards the end to keep the order
+            int i = size;
+            while (i > 0 && events[i - 1].compareTo(event) < 0) {
+                events[i] = events[i - 1];
+                i--;
+            }
+            events[i] = event;
+            size++;
+        }
+
+        private int removeStale() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                Event event = events[i];
+                if (event.isStale()) {
+                    event.getIndividual().decrementPendingEvents();
+                } else {
+                    events[kept++] = event;
+                }
+            }
+
+            int removed = size - kept;
+            for (int i = kept; i < size; i++) {
+                events[i] = null;
+            }
+            size = kept;
+            return removed;
+        }
+    }
+}
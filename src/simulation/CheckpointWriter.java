@@ -0,0 +1,145 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves checkpoints of a running simulation at a fixed wall-clock interval.
+ * The simulation thread only captures its state into memory; compressing and
+ * writing it happen on a background thread, so a slow disk does not stall the
+ * simulation. If a checkpoint is still waiting when the next one arrives, only
+ * the newer one is written. Each checkpoint replaces the whole file through a
+ * temporary file, so a crash never leaves a partial checkpoint behind.
+ */
+public class CheckpointWriter implements AutoCloseable {
+    private final Path file;
+    private final Path temporaryFile;
+    private final long intervalNanos;
+    private final ThreadPoolExecutor executor;
+    private long nextDueNanos;
+    private volatile IOException failure; // The first failed write, reported on the next call
+
+    /**
+     * Creates a writer for the given file.
+     *
+     * @param file The path of the checkpoint file
+     * @param intervalSeconds The wall-clock time between checkpoints, in seconds
+     */
+    public CheckpointWriter(String file, double intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.file = Paths.get(file);
+        this.temporaryFile = Paths.get(file + ".tmp");
+        this.intervalNanos = (long) (intervalSeconds * 1e9);
+        this.nextDueNanos = System.nanoTime() + intervalNanos;
+
+        // One thread and room for one waiting checkpoint; a newer one replaces it
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "checkpoint-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    /**
+     * Opens a checkpoint file written by a writer, e.g. for {@link Simulator#resume(InputStream)}.
+     *
+     * @param file The path of the checkpoint file
+     * @return The uncompressed state
+     * @throws IOException If the file cannot be opened
+     */
+    public static InputStream open(String file) throws IOException {
+        return new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /**
+     * Checks if the interval since the last checkpoint has passed.
+     *
+     * @return True if a checkpoint is due
+     */
+    public boolean isDue() {
+        return System.nanoTime() >= nextDueNanos;
+    }
+
+    /**
+     * Queues a captured state for writing and restarts the interval.
+     *
+     * @param state The state, uncompressed
+     * @throws UncheckedIOException If an earlier checkpoint could not be written
+     */
+    public void submit(byte[] state) {
+        checkFailure();
+        nextDueNanos = System.nanoTime() + intervalNanos;
+        executor.execute(() -> write(state));
+    }
+
+    /**
+     * Writes the waiting checkpoint, if any, and stops the background thread.
+     *
+     * @throws UncheckedIOException If a checkpoint could not be written
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting for the last write
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Gets the path of the checkpoint file.
+     *
+     * @return The path
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    private void write(byte[] state) {
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temporaryFile.toFile());
+                 GZIPOutputStream out = new GZIPOutputStream(fileOut, 1 << 16)) {
+                out.write(state);
+                out.finish();
+                fileOut.getFD().sync(); // On disk before it replaces the previous checkpoint
+            }
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("Could not write checkpoint to " + file, e);
+        }
+    }
+}
@@ -21,8 +21,20 @@ public class DeathEvent extends Event {
 
     @Override
     public void process(Simulator simulator) {
-        // Mark the individual as dead
-        individual.kill();
+        die(simulator, individual);
+    }
+
+    /**
+     * Kills an individual and removes it from the population. Shared with the
+     * simulation loop of {@link IndividualPEC}, which has no event objects.
+     *
+     * @param simulator The simulator
+     * @param individual The individual
+     */
+    static void die(Simulator simulator, Individual individual) {
+        // Kill the individual and remove it from the population
+        simulator.getPopulation().kill(individual);
+        simulator.getMetrics().recordDeath();
     }
 
     /**
@@ -30,6 +42,7 @@ public class DeathEvent extends Event {
      *
      * @return The individual
      */
+    @Override
     public Individual getIndividual() {
         return individual;
     }
@@ -1,10 +1,13 @@
 package simulation;
 
+import model.Individual;
+
 /**
  * Abstract class representing an event in the simulation.
  */
 public abstract class Event implements Comparable<Event> {
     private final double time;
+    private long sequence; // Insertion order in the PEC, breaks ties between equal times
 
     /**
      * Creates a new event scheduled at the given time.
@@ -24,6 +27,40 @@ public abstract class Event implements Comparable<Event> {
         return time;
     }
 
+    /**
+     * Sets the insertion sequence number of this event. Called by the PEC when the event is added.
+     *
+     * @param sequence The sequence number
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the insertion sequence number of this event.
+     *
+     * @return The sequence number
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the individual this event belongs to.
+     *
+     * @return The individual
+     */
+    public abstract Individual getIndividual();
+
+    /**
+     * Checks if this event is stale, i.e. its individual has died since it was scheduled.
+     *
+     * @return True if the event is stale, false otherwise
+     */
+    public boolean isStale() {
+        return getIndividual().isDead();
+    }
+
     /**
      * Processes this event in the simulation.
      *
@@ -33,6 +70,7 @@ public abstract class Event implements Comparable<Event> {
 
     @Override
     public int compareTo(Event other) {
-        return Double.compare(this.time, other.time);
+        int result = Double.compare(this.time, other.time);
+        return result != 0 ? result : Long.compare(this.sequence, other.sequence);
     }
 }
@@ -0,0 +1,115 @@
+package simulation;
+
+import util.LogLinearHistogram;
+
+import java.io.PrintStream;
+
+/**
+ * Latency histograms of the event loop of one simulation, per event type and for
+ * the phases inside them that can take long: epidemics, with the number of
+ * individuals they kill, births, with the length of the path the child inherits,
+ * and observations, including their formatting.
+ * A simulator only measures anything when it is given a profiler, so runs without
+ * one do not read the clock.
+ */
+public class EventProfiler {
+    private final LogLinearHistogram moveNanos = new LogLinearHistogram();
+    private final LogLinearHistogram reproductionNanos = new LogLinearHistogram(); // Epidemics included
+    private final LogLinearHistogram deathNanos = new LogLinearHistogram();
+    private final LogLinearHistogram epidemicNanos = new LogLinearHistogram();
+    private final LogLinearHistogram observationNanos = new LogLinearHistogram();
+    private final LogLinearHistogram epidemicKills = new LogLinearHistogram();
+    private final LogLinearHistogram inheritedPathLength = new LogLinearHistogram();
+
+    /**
+     * Records the time taken to process an event.
+     *
+     * @param event The event
+     * @param nanos The time in nanoseconds
+     */
+    void recordEvent(Event event, long nanos) {
+        if (event instanceof MoveEvent) {
+            moveNanos.record(nanos);
+        } else if (event instanceof ReproductionEvent) {
+            reproductionNanos.record(nanos);
+        } else if (event instanceof DeathEvent) {
+            deathNanos.record(nanos);
+        }
+    }
+
+    /**
+     * Records the time taken to carry out a clock of a {@link IndividualPEC}.
+     *
+     * @param clock The clock, {@link IndividualPEC#DEATH}, {@link IndividualPEC#MOVE}
+     *              or {@link IndividualPEC#REPRODUCTION}
+     * @param nanos The time in nanoseconds
+     */
+    void recordClock(int clock, long nanos) {
+        if (clock == IndividualPEC.MOVE) {
+            moveNanos.record(nanos);
+        } else if (clock == IndividualPEC.REPRODUCTION) {
+            reproductionNanos.record(nanos);
+        } else if (clock == IndividualPEC.DEATH) {
+            deathNanos.record(nanos);
+        }
+    }
+
+    /**
+     * Records an epidemic.
+     *
+     * @param nanos The time in nanoseconds
+     * @param kills The number of individuals it killed
+     */
+    void recordEpidemic(long nanos, long kills) {
+        epidemicNanos.record(nanos);
+        epidemicKills.record(kills);
+    }
+
+    /**
+     * Records the birth of a child.
+     *
+     * @param pathLength The length of the path it inherited from its parent
+     */
+    void recordBirth(int pathLength) {
+        inheritedPathLength.record(pathLength);
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param nanos The time in nanoseconds
+     */
+    void recordObservation(long nanos) {
+        observationNanos.record(nanos);
+    }
+
+    /**
+     * Prints a table with the count, p50, p99, max and mean of every histogram.
+     * Times are in microseconds.
+     *
+     * @param out The stream to print to
+     */
+    public void printReport(PrintStream out) {
+        out.println("Event loop profile (times in microseconds)");
+        out.println(String.format("%-22s %10s %10s %10s %10s %10s", "", "count", "p50", "p99", "max", "mean"));
+        printTimes(out, "move", moveNanos);
+        printTimes(out, "reproduction", reproductionNanos);
+        printTimes(out, "death", deathNanos);
+        printTimes(out, "epidemic", epidemicNanos);
+        printTimes(out, "observation", observationNanos);
+        printValues(out, "epidemic kills", epidemicKills);
+        printValues(out, "inherited path length", inheritedPathLength);
+    }
+
+    private static void printTimes(PrintStream out, String name, LogLinearHistogram histogram) {
+        out.println(String.format("%-22s %10d %10.2f %10.2f %10.2f %10.2f", name, histogram.getCount(),
+                histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                histogram.getMax() / 1e3, histogram.getMean() / 1e3));
+    }
+
+    private static void printValues(PrintStream out, String name, LogLinearHistogram histogram) {
+        out.println(String.format("%-22s %10d %10d %10d %10d %10.2f", name, histogram.getCount(),
+                histogram.getPercentile(50), histogram.getPercentile(99),
+                histogram.getMax(), histogram.getMean()));
+    }
+}
@@ -0,0 +1,56 @@
+package simulation;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * A JDK Flight Recorder recording of this JVM, started and stopped through the
+ * diagnostic command MBean, the same way as with jcmd. The recording uses the
+ * "profile" settings and is written to a file that opens in JDK Mission Control.
+ * Needs a JVM with Flight Recorder (JDK 11 or later, or 8u262 or later).
+ */
+public class FlightRecording {
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+    private static final String[] SIGNATURE = {String[].class.getName()};
+
+    private final String name;
+    private final String file;
+
+    /**
+     * Starts a recording.
+     *
+     * @param name The name of the recording
+     * @param file The file the recording is written to when it stops
+     * @throws JMException If Flight Recorder is not available
+     */
+    public FlightRecording(String name, String file) throws JMException {
+        this.name = name;
+        this.file = file;
+        invoke("jfrStart", "name=" + name, "settings=profile");
+    }
+
+    /**
+     * Stops the recording and writes it to its file.
+     *
+     * @throws JMException If the recording cannot be stopped or written
+     */
+    public void stop() throws JMException {
+        invoke("jfrStop", "name=" + name, "filename=" + file);
+    }
+
+    /**
+     * Gets the file the recording is written to.
+     *
+     * @return The file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    private static void invoke(String command, String... arguments) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), command, new Object[]{arguments}, SIGNATURE);
+    }
+}
@@ -0,0 +1,356 @@
+package simulation;
+
+import io.OutputGenerator;
+import model.Grid;
+import model.Individual;
+import model.Population;
+import util.ComfortCalculator;
+import util.ExponentialSampler;
+import util.RandomSource;
+import util.SumTree;
+
+import java.util.Arrays;
+
+/**
+ * Simulation engine that draws events from their rates instead of keeping them
+ * in a PEC, following the direct method of Gillespie (1977).
+ * Every individual has three exponential clocks, and an exponential clock of rate
+ * r can be replaced at any moment by a fresh one of the same rate. So instead of
+ * drawing and storing the time of every event, the engine keeps the rate of every
+ * clock in a {@link SumTree}, draws the time to the next event of any individual
+ * from the total rate and then which clock it is, proportionally to its rate, in
+ * O(log n). Nothing is scheduled and nothing goes stale.
+ * The rates are those the PEC engine draws its times with: the death rate is fixed
+ * at birth, the move rate follows the comfort after every move and the reproduction
+ * rate is fixed at birth and at every reproduction. The runs are therefore the same
+ * stochastic process as those of {@link Simulator}, but not the same runs for a
+ * given seed.
+ */
+public class GillespieSimulator {
+    private static final int CLOCKS = 3;
+    private static final int DEATH = 0;
+    private static final int MOVE = 1;
+    private static final int REPRODUCTION = 2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Grid grid;
+    private final Population population;
+    private final RandomSource random;
+    private final ComfortCalculator comfortCalculator;
+    private final double deathMean;
+    private final double moveMean;
+    private final double reproductionMean;
+    private final double simulationTime;
+    private final SumTree totalRates; // Sum of the clock rates of every slot
+    private double[] rates; // By slot; the rates of slot s are at s * CLOCKS + clock
+    private Individual[] owners; // By slot
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount; // Slots handed out so far, free ones included
+    private OutputGenerator output;
+    private double currentTime;
+    private double firstHitTime; // Time the final point was first reached, or NaN
+    private int observationCount;
+    private long processedEvents;
+    private long moveEvents;
+    private long reproductionEvents;
+    private long deathEvents;
+
+    /**
+     * Creates a new simulator with the given parameters and random source.
+     * Simulators given sources created from the same seed run identically.
+     *
+     * @param grid The grid
+     * @param initialPopulation The initial population size (ν)
+     * @param maxPopulation The maximum population size (νmax)
+     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param deathMean The mean value for the death event (μ)
+     * @param moveMean The mean value for the move event (δ)
+     * @param reproductionMean The mean value for the reproduction event (ρ)
+     * @param simulationTime The final time of the simulation (τ)
+     * @param random The random source, used by this simulator only
+     */
+    public GillespieSimulator(Grid grid, int initialPopulation, int maxPopulation,
+                              double comfortSensitivity, double deathMean, double moveMean,
+                              double reproductionMean, double simulationTime, RandomSource random) {
+        this.grid = grid;
+        this.random = random;
+        this.comfortCalculator = new ComfortCalculator(grid, comfortSensitivity);
+        this.deathMean = deathMean;
+        this.moveMean = moveMean;
+        this.reproductionMean = reproductionMean;
+        this.simulationTime = simulationTime;
+        this.totalRates = new SumTree(INITIAL_CAPACITY);
+        this.rates = new double[INITIAL_CAPACITY * CLOCKS];
+        this.owners = new Individual[INITIAL_CAPACITY];
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.output = new OutputGenerator(System.out, false);
+        this.currentTime = 0.0;
+        this.firstHitTime = Double.NaN;
+        this.observationCount = 0;
+
+        // Initialize population; the dead give up their slots right away
+        this.population = new Population(grid, initialPopulation, maxPopulation, comfortSensitivity, deathMean, random, currentTime);
+        this.population.setDeathListener(this::release);
+        for (Individual individual : population.getIndividuals()) {
+            add(individual);
+        }
+    }
+
+    /**
+     * Sets where the observations are printed. By default they go to standard output.
+     * The output is flushed when the simulation ends.
+     *
+     * @param output The output generator
+     */
+    public void setOutputGenerator(OutputGenerator output) {
+        this.output = output;
+    }
+
+    /**
+     * Runs the simulation until the final time or until no individual is left.
+     *
+     * @return The best individual found during the simulation
+     */
+    public Individual simulate() {
+        // Print initial observation (time 0) - this is observation 0
+        printObservation();
+        if (population.isFinalPointReached()) {
+            firstHitTime = currentTime; // Started on the final point
+        }
+
+        // Main simulation loop
+        while (totalRates.getTotal() > 0.0) {
+            // Time to the next event of any clock, then which clock it is
+            double time = currentTime + ExponentialSampler.sample(random, 1.0 / totalRates.getTotal());
+            if (time > simulationTime) {
+                break;
+            }
+            currentTime = time;
+
+            int slot = totalRates.find(random.nextDouble() * totalRates.getTotal());
+            processClock(owners[slot], slot, pickClock(slot));
+            processedEvents++;
+            if (Double.isNaN(firstHitTime) && population.isFinalPointReached()) {
+                firstHitTime = currentTime;
+            }
+
+            // Check if it's time for an observation
+            // We need observations at τ/20, 2τ/20, 3τ/20, ..., 19τ/20, 20τ/20
+            if (observationCount <= 19 && currentTime >= observationCount * (simulationTime / 20)) {
+                printObservation();
+            }
+        }
+
+        // Final observation at time τ (observation 20) - ensure we always get observation 20
+        if (observationCount <= 20) {
+            currentTime = simulationTime;
+            printObservation();
+        }
+        output.flush();
+
+        // Return the best individual found during the simulation
+        return population.getBestIndividualOverall();
+    }
+
+    /**
+     * Draws one of the clocks of a slot proportionally to its rate.
+     *
+     * @param slot The slot, whose total rate must be positive
+     * @return The clock
+     */
+    private int pickClock(int slot) {
+        int base = slot * CLOCKS;
+        double target = random.nextDouble() * totalRates.get(slot);
+        if (target < rates[base + DEATH] || rates[base + MOVE] + rates[base + REPRODUCTION] <= 0.0) {
+            return DEATH;
+        }
+        target -= rates[base + DEATH];
+        return target < rates[base + MOVE] || rates[base + REPRODUCTION] <= 0.0 ? MOVE : REPRODUCTION;
+    }
+
+    /**
+     * Carries out what a clock stands for, like the events of the PEC engine.
+     *
+     * @param individual The individual
+     * @param slot The slot of the individual
+     * @param clock The clock
+     */
+    private void processClock(Individual individual, int slot, int clock) {
+        if (clock == MOVE) {
+            // Move, and the next move waits according to the new comfort
+            moveEvents++;
+            individual.move(grid, comfortCalculator, random);
+            population.update(individual);
+            setRate(slot, MOVE, 1.0 / (individual.getWaitFactor() * moveMean));
+        } else if (clock == REPRODUCTION) {
+            reproductionEvents++;
+            Individual child = new Individual(individual, currentTime, deathMean, comfortCalculator, grid, random);
+            if (population.addIndividual(child)) {
+                population.simulateEpidemic(random);
+            }
+            if (!child.isDead()) {
+                add(child);
+            }
+            if (!individual.isDead()) {
+                setRate(slot, REPRODUCTION, 1.0 / (individual.getWaitFactor() * reproductionMean));
+            }
+        } else {
+            deathEvents++;
+            population.kill(individual); // Releases the slot
+        }
+    }
+
+    /**
+     * Gives a new individual a slot with the rates of its clocks at birth.
+     *
+     * @param individual The individual
+     */
+    private void add(Individual individual) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == owners.length) {
+                owners = Arrays.copyOf(owners, 2 * slotCount);
+                rates = Arrays.copyOf(rates, 2 * slotCount * CLOCKS);
+                freeSlots = Arrays.copyOf(freeSlots, 2 * slotCount);
+            }
+            slot = slotCount++;
+        }
+
+        owners[slot] = individual;
+        individual.setSchedulerSlot(slot);
+        int base = slot * CLOCKS;
+        rates[base + DEATH] = 1.0 / (individual.getLifeFactor() * deathMean);
+        rates[base + MOVE] = 1.0 / (individual.getWaitFactor() * moveMean);
+        rates[base + REPRODUCTION] = 1.0 / (individual.getWaitFactor() * reproductionMean);
+        updateTotal(slot);
+    }
+
+    /**
+     * Takes the slot of an individual that has just died out of the draw.
+     *
+     * @param individual The individual
+     */
+    private void release(Individual individual) {
+        int slot = individual.getSchedulerSlot();
+        if (slot < 0) {
+            return;
+        }
+
+        Arrays.fill(rates, slot * CLOCKS, (slot + 1) * CLOCKS, 0.0);
+        totalRates.set(slot, 0.0);
+        owners[slot] = null;
+        individual.setSchedulerSlot(-1);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void setRate(int slot, int clock, double rate) {
+        rates[slot * CLOCKS + clock] = rate;
+        updateTotal(slot);
+    }
+
+    private void updateTotal(int slot) {
+        int base = slot * CLOCKS;
+        totalRates.set(slot, rates[base + DEATH] + rates[base + MOVE] + rates[base + REPRODUCTION]);
+    }
+
+    /**
+     * Prints the current state of the population.
+     */
+    private void printObservation() {
+        if (!output.isObservationEnabled()) {
+            observationCount++; // Keeps the observation times, without gathering anything
+            return;
+        }
+
+        Individual bestIndividual = population.getBestIndividual();
+        boolean reachedFinal = bestIndividual != null &&
+                bestIndividual.hasReachedFinalPoint(grid.getFinalPoint());
+
+        output.printObservation(
+                observationCount,
+                currentTime,
+                processedEvents,
+                population.getSize(),
+                reachedFinal,
+                bestIndividual,
+                grid.getFinalPoint()
+        );
+
+        observationCount++;
+    }
+
+    /**
+     * Gets the grid.
+     *
+     * @return The grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Gets the population.
+     *
+     * @return The population
+     */
+    public Population getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the number of processed events.
+     *
+     * @return The number of processed events
+     */
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    /**
+     * Gets the number of processed move events.
+     *
+     * @return The number of moves
+     */
+    public long getMoveEvents() {
+        return moveEvents;
+    }
+
+    /**
+     * Gets the number of processed reproduction events.
+     *
+     * @return The number of reproductions
+     */
+    public long getReproductionEvents() {
+        return reproductionEvents;
+    }
+
+    /**
+     * Gets the number of processed death events, not counting deaths in epidemics.
+     *
+     * @return The number of deaths
+     */
+    public long getDeathEvents() {
+        return deathEvents;
+    }
+
+    /**
+     * Gets the time at which an individual first reached the final point.
+     *
+     * @return The time of the first hit, or NaN if the final point has not been reached
+     */
+    public double getFirstHitTime() {
+        return firstHitTime;
+    }
+
+    /**
+     * Gets the current time of the simulation.
+     *
+     * @return The current time
+     */
+    public double getCurrentTime() {
+        return currentTime;
+    }
+}
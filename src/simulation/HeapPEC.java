@@ -0,0 +1,66 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Pending Event Container backed by a binary heap. This is the default PEC.
+ */
+public class HeapPEC extends AbstractPEC {
+    private PriorityQueue<Event> events;
+
+    /**
+     * Creates a new empty PEC.
+     */
+    public HeapPEC() {
+        this.events = new PriorityQueue<>();
+    }
+
+    @Override
+    protected void insert(Event event) {
+        events.add(event);
+    }
+
+    @Override
+    protected Event peekFirst() {
+        return events.peek();
+    }
+
+    @Override
+    protected Event pollFirst() {
+        return events.poll();
+    }
+
+    @Override
+    protected int storedSize() {
+        return events.size();
+    }
+
+    @Override
+    protected void forEachStored(Consumer<Event> action) {
+        events.forEach(action);
+    }
+
+    @Override
+    protected void clearStored() {
+        events.clear();
+    }
+
+    @Override
+    protected int purgeStaleEvents() {
+        List<Event> live = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.isStale()) {
+                event.getIndividual().decrementPendingEvents();
+            } else {
+                live.add(event);
+            }
+        }
+
+        int purged = events.size() - live.size();
+        events = new PriorityQueue<>(live); // Heapifies in linear time
+        return purged;
+    }
+}
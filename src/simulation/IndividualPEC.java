@@ -0,0 +1,467 @@
+package simulation;
+
+import model.Individual;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pending Event Container that keeps one entry per individual instead of one per
+ * event. Every individual has three clocks, its death, its next move and its next
+ * reproduction, and its entry in an indexed binary heap is keyed by the earliest
+ * of them. Scheduling a clock updates the entry in place and the entry of an
+ * individual that dies is removed in O(log n), so the heap holds a third of the
+ * entries of {@link HeapPEC}, there are no stale events and, through
+ * {@link #schedule(Individual, int, double, int)} and the peek methods, the
+ * simulator runs without allocating any events.
+ * Clocks get insertion sequence numbers like events do, so events come out in
+ * exactly the same order as from {@link HeapPEC}. An individual can have at most
+ * one pending event of each type.
+ */
+public class IndividualPEC implements PEC {
+    /** The death clock of an individual. */
+    public static final int DEATH = 0;
+    /** The move clock of an individual. */
+    public static final int MOVE = 1;
+    /** The reproduction clock of an individual. */
+    public static final int REPRODUCTION = 2;
+
+    private static final int CLOCKS = 3;
+    private static final long UNSCHEDULED = Long.MAX_VALUE; // Sequence of a clock that is not pending
+    private static final int INITIAL_CAPACITY = 16;
+
+    // By slot; the clocks of slot s are at s * CLOCKS + clock
+    private Individual[] owners;
+    private double[] clockTimes;
+    private long[] clockSequences;
+    private int[] clockNumbers; // Move or reproduction number, as in the events
+    private int[] positions; // Heap position of every slot
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount; // Slots handed out so far, free ones included
+
+    // By heap position; the key of an entry is its earliest clock
+    private int[] heap;
+    private double[] keyTimes;
+    private long[] keySequences;
+    private byte[] keyClocks;
+    private int heapSize;
+
+    private int size; // Pending clocks
+    private int maxSize;
+    private long processedEvents;
+    private long nextSequence;
+    private long staleEventsSkipped;
+    private long staleEventsPurged;
+
+    /**
+     * Creates a new empty PEC.
+     */
+    public IndividualPEC() {
+        this.owners = new Individual[INITIAL_CAPACITY];
+        this.clockTimes = new double[INITIAL_CAPACITY * CLOCKS];
+        this.clockSequences = new long[INITIAL_CAPACITY * CLOCKS];
+        this.clockNumbers = new int[INITIAL_CAPACITY * CLOCKS];
+        this.positions = new int[INITIAL_CAPACITY];
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.heap = new int[INITIAL_CAPACITY];
+        this.keyTimes = new double[INITIAL_CAPACITY];
+        this.keySequences = new long[INITIAL_CAPACITY];
+        this.keyClocks = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Schedules a clock of an individual. Clocks of an individual that is already
+     * dead are dropped and counted as skipped, like stale events.
+     *
+     * @param individual The individual
+     * @param clock The clock, {@link #DEATH}, {@link #MOVE} or {@link #REPRODUCTION}
+     * @param time The time the clock goes off
+     * @param number The move or reproduction number, or 0 for a death
+     * @throws IllegalStateException If the clock is already pending
+     */
+    public void schedule(Individual individual, int clock, double time, int number) {
+        if (individual.isDead()) {
+            staleEventsSkipped++;
+            return;
+        }
+
+        int slot = individual.getSchedulerSlot();
+        if (slot < 0) {
+            slot = allocate(individual);
+        }
+        int index = slot * CLOCKS + clock;
+        if (clockSequences[index] != UNSCHEDULED) {
+            throw new IllegalStateException("The individual already has a pending event of this type");
+        }
+        clockTimes[index] = time;
+        clockSequences[index] = nextSequence++;
+        clockNumbers[index] = number;
+        if (++size > maxSize) {
+            maxSize = size;
+        }
+        updateKey(slot);
+    }
+
+    /**
+     * Gets the individual whose clock goes off next.
+     *
+     * @return The individual, or null if the PEC is empty
+     */
+    public Individual peekIndividual() {
+        return heapSize == 0 ? null : owners[heap[0]];
+    }
+
+    /**
+     * Gets the time of the next clock. The PEC must not be empty.
+     *
+     * @return The time
+     */
+    public double peekTime() {
+        return keyTimes[0];
+    }
+
+    /**
+     * Gets which clock goes off next. The PEC must not be empty.
+     *
+     * @return The clock, {@link #DEATH}, {@link #MOVE} or {@link #REPRODUCTION}
+     */
+    public int peekClock() {
+        return keyClocks[0];
+    }
+
+    /**
+     * Gets the move or reproduction number of the next clock. The PEC must not be empty.
+     *
+     * @return The number, or 0 for a death
+     */
+    public int peekNumber() {
+        return clockNumbers[heap[0] * CLOCKS + keyClocks[0]];
+    }
+
+    /**
+     * Removes the next clock and counts it as processed. The PEC must not be empty.
+     */
+    public void removeFirst() {
+        int slot = heap[0];
+        int index = slot * CLOCKS + keyClocks[0];
+        clockTimes[index] = Double.POSITIVE_INFINITY;
+        clockSequences[index] = UNSCHEDULED;
+        size--;
+        processedEvents++;
+        updateKey(slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The event is turned into a clock of its individual.
+     *
+     * @throws IllegalArgumentException If the event type is unknown
+     * @throws IllegalStateException If the individual already has a pending event of that type
+     */
+    @Override
+    public void addEvent(Event event) {
+        if (event instanceof MoveEvent) {
+            schedule(event.getIndividual(), MOVE, event.getTime(), ((MoveEvent) event).getMoveNumber());
+        } else if (event instanceof ReproductionEvent) {
+            schedule(event.getIndividual(), REPRODUCTION, event.getTime(),
+                    ((ReproductionEvent) event).getReproductionNumber());
+        } else if (event instanceof DeathEvent) {
+            schedule(event.getIndividual(), DEATH, event.getTime(), 0);
+        } else {
+            throw new IllegalArgumentException("Unknown event type: " + event.getClass().getName());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The event is created on every call.
+     */
+    @Override
+    public Event peekEvent() {
+        if (heapSize == 0) {
+            return null;
+        }
+
+        return createEvent(heap[0], keyClocks[0]);
+    }
+
+    @Override
+    public Event nextEvent() {
+        Event event = peekEvent();
+        if (event != null) {
+            removeFirst();
+        }
+        return event;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The entry of the individual is removed right away and its pending clocks are
+     * counted as purged.
+     */
+    @Override
+    public void discardEventsOf(Individual individual) {
+        int slot = individual.getSchedulerSlot();
+        if (slot < 0) {
+            return;
+        }
+
+        for (int clock = 0; clock < CLOCKS; clock++) {
+            if (clockSequences[slot * CLOCKS + clock] != UNSCHEDULED) {
+                size--;
+                staleEventsPurged++;
+            }
+        }
+        removeEntry(slot);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    @Override
+    public long getStaleEventsSkipped() {
+        return staleEventsSkipped;
+    }
+
+    @Override
+    public long getStaleEventsPurged() {
+        return staleEventsPurged;
+    }
+
+    /**
+     * Gets the pending clocks as events, in the order they will be processed.
+     *
+     * @return The events, with their sequence numbers
+     */
+    List<Event> getLiveEvents() {
+        List<Event> live = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (owners[slot] == null) {
+                continue;
+            }
+            for (int clock = 0; clock < CLOCKS; clock++) {
+                if (clockSequences[slot * CLOCKS + clock] != UNSCHEDULED) {
+                    live.add(createEvent(slot, clock));
+                }
+            }
+        }
+        live.sort(null);
+        return live;
+    }
+
+    /**
+     * Gets the sequence number the next scheduled clock will get.
+     *
+     * @return The next sequence number
+     */
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Replaces the contents and counters of the PEC, e.g. from a checkpoint.
+     * The clocks keep the sequence numbers their events have.
+     *
+     * @param events The live events, at most one of each type per individual
+     * @param nextSequence The sequence number of the next scheduled clock
+     * @param processedEvents The number of processed events
+     * @param maxSize The largest number of pending clocks so far
+     * @param staleEventsSkipped The number of skipped clocks so far
+     * @param staleEventsPurged The number of purged clocks so far
+     */
+    void restore(List<Event> events, long nextSequence, long processedEvents, int maxSize,
+                 long staleEventsSkipped, long staleEventsPurged) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (owners[slot] != null) {
+                owners[slot].setSchedulerSlot(-1);
+                owners[slot] = null;
+            }
+        }
+        slotCount = 0;
+        freeCount = 0;
+        heapSize = 0;
+        size = 0;
+        for (Event event : events) {
+            this.nextSequence = event.getSequence(); // Taken by the clock
+            addEvent(event);
+        }
+        this.nextSequence = nextSequence;
+        this.processedEvents = processedEvents;
+        this.maxSize = maxSize;
+        this.staleEventsSkipped = staleEventsSkipped;
+        this.staleEventsPurged = staleEventsPurged;
+    }
+
+    /**
+     * Creates the event a pending clock stands for.
+     *
+     * @param slot The slot
+     * @param clock The clock, which must be pending
+     * @return The event, with the sequence number of the clock
+     */
+    private Event createEvent(int slot, int clock) {
+        int index = slot * CLOCKS + clock;
+        Individual individual = owners[slot];
+        Event event;
+        if (clock == MOVE) {
+            event = new MoveEvent(clockTimes[index], individual, clockNumbers[index]);
+        } else if (clock == REPRODUCTION) {
+            event = new ReproductionEvent(clockTimes[index], individual, clockNumbers[index]);
+        } else {
+            event = new DeathEvent(clockTimes[index], individual);
+        }
+        event.setSequence(clockSequences[index]);
+        return event;
+    }
+
+    /**
+     * Gives an individual a slot with no pending clocks and an entry at the bottom of the heap.
+     *
+     * @param individual The individual
+     * @return The slot
+     */
+    private int allocate(Individual individual) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == owners.length) {
+                int capacity = 2 * slotCount;
+                owners = Arrays.copyOf(owners, capacity);
+                clockTimes = Arrays.copyOf(clockTimes, capacity * CLOCKS);
+                clockSequences = Arrays.copyOf(clockSequences, capacity * CLOCKS);
+                clockNumbers = Arrays.copyOf(clockNumbers, capacity * CLOCKS);
+                positions = Arrays.copyOf(positions, capacity);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+                heap = Arrays.copyOf(heap, capacity);
+                keyTimes = Arrays.copyOf(keyTimes, capacity);
+                keySequences = Arrays.copyOf(keySequences, capacity);
+                keyClocks = Arrays.copyOf(keyClocks, capacity);
+            }
+            slot = slotCount++;
+        }
+
+        owners[slot] = individual;
+        for (int index = slot * CLOCKS; index < (slot + 1) * CLOCKS; index++) {
+            clockTimes[index] = Double.POSITIVE_INFINITY;
+            clockSequences[index] = UNSCHEDULED;
+        }
+        individual.setSchedulerSlot(slot);
+        place(heapSize++, slot, Double.POSITIVE_INFINITY, UNSCHEDULED, (byte) 0);
+        return slot;
+    }
+
+    /**
+     * Removes the entry of a slot from the heap and frees the slot.
+     *
+     * @param slot The slot
+     */
+    private void removeEntry(int slot) {
+        int index = positions[slot];
+        heapSize--;
+        if (index != heapSize) {
+            reposition(index, heap[heapSize], keyTimes[heapSize], keySequences[heapSize], keyClocks[heapSize]);
+        }
+        owners[slot].setSchedulerSlot(-1);
+        owners[slot] = null;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Recomputes the key of a slot after one of its clocks changed and restores the
+     * heap order. A slot left without pending clocks is removed.
+     *
+     * @param slot The slot
+     */
+    private void updateKey(int slot) {
+        int base = slot * CLOCKS;
+        int earliest = 0;
+        for (int clock = 1; clock < CLOCKS; clock++) {
+            if (isBefore(clockTimes[base + clock], clockSequences[base + clock],
+                    clockTimes[base + earliest], clockSequences[base + earliest])) {
+                earliest = clock;
+            }
+        }
+
+        if (clockSequences[base + earliest] == UNSCHEDULED) {
+            removeEntry(slot);
+        } else {
+            reposition(positions[slot], slot, clockTimes[base + earliest], clockSequences[base + earliest],
+                    (byte) earliest);
+        }
+    }
+
+    /**
+     * Puts an entry into the given position and sifts it up or down.
+     */
+    private void reposition(int index, int slot, double time, long sequence, byte clock) {
+        int parent = (index - 1) / 2;
+        if (index > 0 && isBefore(time, sequence, keyTimes[parent], keySequences[parent])) {
+            siftUp(index, slot, time, sequence, clock);
+        } else {
+            siftDown(index, slot, time, sequence, clock);
+        }
+    }
+
+    private void siftUp(int index, int slot, double time, long sequence, byte clock) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!isBefore(time, sequence, keyTimes[parent], keySequences[parent])) {
+                break;
+            }
+            place(index, heap[parent], keyTimes[parent], keySequences[parent], keyClocks[parent]);
+            index = parent;
+        }
+        place(index, slot, time, sequence, clock);
+    }
+
+    private void siftDown(int index, int slot, double time, long sequence, byte clock) {
+        while (2 * index + 1 < heapSize) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize
+                    && isBefore(keyTimes[child + 1], keySequences[child + 1], keyTimes[child], keySequences[child])) {
+                child++;
+            }
+            if (!isBefore(keyTimes[child], keySequences[child], time, sequence)) {
+                break;
+            }
+            place(index, heap[child], keyTimes[child], keySequences[child], keyClocks[child]);
+            index = child;
+        }
+        place(index, slot, time, sequence, clock);
+    }
+
+    private void place(int index, int slot, double time, long sequence, byte clock) {
+        heap[index] = slot;
+        keyTimes[index] = time;
+        keySequences[index] = sequence;
+        keyClocks[index] = clock;
+        positions[slot] = index;
+    }
+
+    /**
+     * Orders clocks by time, breaking ties by insertion order like {@link Event#compareTo(Event)}.
+     */
+    private static boolean isBefore(double time, long sequence, double otherTime, long otherSequence) {
+        return time < otherTime || (time == otherTime && sequence < otherSequence);
+    }
+}
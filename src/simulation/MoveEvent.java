@@ -3,8 +3,6 @@ package simulation;
 import model.Grid;
 import model.Individual;
 
-import java.util.Random;
-
 /**
  * Represents a move event for an individual.
  */
@@ -30,21 +28,35 @@ public class MoveEvent extends Event {
         if (individual.isDead()) {
             return; // Don't process events for dead individuals
         }
+        move(simulator, individual, getTime(), moveNumber);
+    }
 
+    /**
+     * Moves an individual and schedules its next move. Shared with the simulation
+     * loop of {@link IndividualPEC}, which has no event objects.
+     *
+     * @param simulator The simulator
+     * @param individual The individual, which must be alive
+     * @param time The time of the move
+     * @param moveNumber The sequence number of this move
+     */
+    static void move(Simulator simulator, Individual individual, double time, int moveNumber) {
         // Move the individual
-        individual.move(simulator.getGrid(), simulator.getComfortSensitivity(), simulator.getRandom());
+        boolean cycleRemoved = individual.move(simulator.getGrid(), simulator.getComfortCalculator(),
+                simulator.getRandom());
+        simulator.getMetrics().recordMove(cycleRemoved);
+        simulator.getPopulation().update(individual);
 
         // Schedule the next move
         double nextMoveTime = individual.calculateNextMoveTime(
-                getTime(),
+                time,
                 simulator.getMoveMean(),
                 simulator.getRandom()
         );
 
         // Check if the next move time is within the simulation time
         if (nextMoveTime <= simulator.getSimulationTime()) {
-            MoveEvent nextMove = new MoveEvent(nextMoveTime, individual, moveNumber + 1);
-            simulator.getPEC().addEvent(nextMove);
+            simulator.scheduleMove(individual, nextMoveTime, moveNumber + 1);
         }
     }
 
@@ -53,6 +65,7 @@ public class MoveEvent extends Event {
      *
      * @return The individual
      */
+    @Override
     public Individual getIndividual() {
         return individual;
     }
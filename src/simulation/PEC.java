@@ -1,78 +1,84 @@
 package simulation;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
+import model.Individual;
 
 /**
  * Pending Event Container (PEC) for managing events in the simulation.
+ * Events come out in order of time, and events with the same time come out
+ * in the order they were added, so every implementation yields the same sequence.
+ * Events whose individual has died are stale: they are never returned, and are
+ * either skipped when they reach the front or purged in bulk once they make up
+ * a large part of the container.
  */
-public class PEC {
-    private final Queue<Event> events;
-    private int processedEvents;
-
-    /**
-     * Creates a new empty PEC.
-     */
-    public PEC() {
-        this.events = new PriorityQueue<>();
-        this.processedEvents = 0;
-    }
-
+public interface PEC {
     /**
      * Adds an event to the PEC.
      *
      * @param event The event to add
      */
-    public void addEvent(Event event) {
-        events.add(event);
-    }
+    void addEvent(Event event);
 
     /**
-     * Gets the next event from the PEC without removing it.
+     * Gets the next live event from the PEC without removing it.
      *
      * @return The next event, or null if the PEC is empty
      */
-    public Event peekEvent() {
-        return events.peek();
-    }
+    Event peekEvent();
 
     /**
-     * Gets and removes the next event from the PEC.
+     * Gets and removes the next live event from the PEC.
      *
      * @return The next event, or null if the PEC is empty
      */
-    public Event nextEvent() {
-        Event event = events.poll();
-        if (event != null) {
-            processedEvents++;
-        }
-        return event;
-    }
+    Event nextEvent();
+
+    /**
+     * Marks the pending events of an individual that has just died as stale.
+     * Must be called before the next event is taken from the PEC.
+     *
+     * @param individual The dead individual
+     */
+    void discardEventsOf(Individual individual);
 
     /**
-     * Checks if the PEC is empty.
+     * Checks if the PEC has no live events.
      *
      * @return True if the PEC is empty, false otherwise
      */
-    public boolean isEmpty() {
-        return events.isEmpty();
-    }
+    boolean isEmpty();
 
     /**
-     * Gets the number of events currently in the PEC.
+     * Gets the number of live events currently in the PEC.
      *
      * @return The number of events
      */
-    public int size() {
-        return events.size();
-    }
+    int size();
+
+    /**
+     * Gets the largest number of live events the PEC has held.
+     *
+     * @return The high-water mark of {@link #size()}
+     */
+    int getMaxSize();
 
     /**
      * Gets the number of processed events.
      *
      * @return The number of processed events
      */
-    public int getProcessedEvents() {
-        return processedEvents;
-    }
+    long getProcessedEvents();
+
+    /**
+     * Gets the number of stale events dropped when they reached the front of the PEC.
+     *
+     * @return The number of skipped stale events
+     */
+    long getStaleEventsSkipped();
+
+    /**
+     * Gets the number of stale events removed by bulk purges.
+     *
+     * @return The number of purged stale events
+     */
+    long getStaleEventsPurged();
 }
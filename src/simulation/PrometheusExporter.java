@@ -0,0 +1,91 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes simulation metrics to a file in the Prometheus text exposition format,
+ * e.g. for the textfile collector of the node exporter. Each write replaces the
+ * whole file through a temporary file, so readers never see a partial file.
+ */
+public class PrometheusExporter {
+    private final Path file;
+    private final Path temporaryFile;
+    private final StringBuilder text;
+
+    /**
+     * Creates an exporter for the given file.
+     *
+     * @param file The path of the file to write
+     */
+    public PrometheusExporter(String file) {
+        this.file = Paths.get(file);
+        this.temporaryFile = Paths.get(file + ".tmp");
+        this.text = new StringBuilder(2048);
+    }
+
+    /**
+     * Writes the current values of the metrics, replacing the previous ones.
+     *
+     * @param metrics The metrics
+     */
+    public void write(SimulationMetrics metrics) {
+        text.setLength(0);
+        appendHeader("pathfinder_events_total", "Processed events by type.", "counter");
+        appendSample("pathfinder_events_total{type=\"move\"}", metrics.getMoveEvents());
+        appendSample("pathfinder_events_total{type=\"reproduction\"}", metrics.getReproductionEvents());
+        appendSample("pathfinder_events_total{type=\"death\"}", metrics.getDeathEvents());
+        appendHeader("pathfinder_stale_events_total", "Events of dead individuals dropped from the PEC.", "counter");
+        appendSample("pathfinder_stale_events_total{disposal=\"skipped\"}", metrics.getStaleEventsSkipped());
+        appendSample("pathfinder_stale_events_total{disposal=\"purged\"}", metrics.getStaleEventsPurged());
+        appendHeader("pathfinder_epidemics_total", "Epidemics triggered by a full population.", "counter");
+        appendSample("pathfinder_epidemics_total", metrics.getEpidemics());
+        appendHeader("pathfinder_individuals_killed_total", "Individuals killed by cause.", "counter");
+        appendSample("pathfinder_individuals_killed_total{cause=\"death\"}", metrics.getDeathEvents());
+        appendSample("pathfinder_individuals_killed_total{cause=\"epidemic\"}", metrics.getEpidemicDeaths());
+        appendHeader("pathfinder_path_cycle_removals_total", "Cycles cut out of paths by moves.", "counter");
+        appendSample("pathfinder_path_cycle_removals_total", metrics.getCycleRemovals());
+        appendHeader("pathfinder_pending_events", "Live events in the PEC.", "gauge");
+        appendSample("pathfinder_pending_events", metrics.getPendingEvents());
+        appendHeader("pathfinder_pending_events_max", "Largest number of live events in the PEC.", "gauge");
+        appendSample("pathfinder_pending_events_max", metrics.getPendingEventsHighWater());
+        appendHeader("pathfinder_population_size", "Individuals in the population.", "gauge");
+        appendSample("pathfinder_population_size", metrics.getPopulationSize());
+        appendHeader("pathfinder_population_size_max", "Largest population size.", "gauge");
+        appendSample("pathfinder_population_size_max", metrics.getPopulationHighWater());
+        appendHeader("pathfinder_simulation_time", "Current simulation time.", "gauge");
+        appendSample("pathfinder_simulation_time", metrics.getSimulationTime());
+        appendHeader("pathfinder_events_per_second", "Processed events per second of wall-clock time.", "gauge");
+        appendSample("pathfinder_events_per_second", metrics.getEventsPerSecond());
+
+        try {
+            Files.write(temporaryFile, text.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendHeader(String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void appendSample(String series, long value) {
+        text.append(series).append(' ').append(value).append('\n');
+    }
+
+    private void appendSample(String series, double value) {
+        text.append(series).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,137 @@
+package simulation;
+
+import model.Individual;
+
+/**
+ * Result of one replica of a simulation: the best individual it found and
+ * everything it printed.
+ */
+public class ReplicaResult {
+    private final int replica;
+    private final Individual bestIndividual;
+    private final boolean reachedFinal;
+    private final double firstHitTime;
+    private final long processedEvents;
+    private final long elapsedNanos;
+    private final String output;
+
+    /**
+     * Creates a new replica result.
+     *
+     * @param replica The number of the replica, counted from 0
+     * @param bestIndividual The best individual found, or null if there is none
+     * @param reachedFinal Whether the best individual reached the final point
+     * @param firstHitTime The simulation time of the first hit of the final point, or NaN
+     * @param processedEvents The number of processed events
+     * @param elapsedNanos The wall-clock time the simulation took, in nanoseconds
+     * @param output The complete output of the replica, or an empty string if it was not kept
+     */
+    public ReplicaResult(int replica, Individual bestIndividual, boolean reachedFinal, double firstHitTime,
+                         long processedEvents, long elapsedNanos, String output) {
+        this.replica = replica;
+        this.bestIndividual = bestIndividual;
+        this.reachedFinal = reachedFinal;
+        this.firstHitTime = firstHitTime;
+        this.processedEvents = processedEvents;
+        this.elapsedNanos = elapsedNanos;
+        this.output = output;
+    }
+
+    /**
+     * Gets the number of the replica.
+     *
+     * @return The replica number, counted from 0
+     */
+    public int getReplica() {
+        return replica;
+    }
+
+    /**
+     * Gets the best individual found by the replica.
+     *
+     * @return The best individual, or null if there is none
+     */
+    public Individual getBestIndividual() {
+        return bestIndividual;
+    }
+
+    /**
+     * Checks if the best individual reached the final point.
+     *
+     * @return True if the final point was reached, false otherwise
+     */
+    public boolean hasReachedFinal() {
+        return reachedFinal;
+    }
+
+    /**
+     * Gets the simulation time at which the final point was first reached.
+     *
+     * @return The time of the first hit, or NaN if the final point was not reached
+     */
+    public double getFirstHitTime() {
+        return firstHitTime;
+    }
+
+    /**
+     * Gets the number of events the replica processed.
+     *
+     * @return The number of processed events
+     */
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    /**
+     * Gets the wall-clock time the simulation took.
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the complete output of the replica.
+     *
+     * @return The output
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Gets a copy of this result without its output, for results whose output is
+     * no longer needed.
+     *
+     * @return The copy, whose output is an empty string
+     */
+    public ReplicaResult withoutOutput() {
+        return new ReplicaResult(replica, bestIndividual, reachedFinal, firstHitTime, processedEvents,
+                elapsedNanos, "");
+    }
+
+    /**
+     * Checks if this result is strictly better than another one.
+     * Reaching the final point beats not reaching it; if both reached it the lower
+     * cost wins, otherwise the higher comfort.
+     *
+     * @param other The other result
+     * @return True if this result is better, false if it is equal or worse
+     */
+    public boolean isBetterThan(ReplicaResult other) {
+        if (bestIndividual == null) {
+            return false;
+        }
+        if (other.bestIndividual == null) {
+            return true;
+        }
+        if (reachedFinal != other.reachedFinal) {
+            return reachedFinal;
+        }
+        if (reachedFinal) {
+            return bestIndividual.getPath().getCost() < other.bestIndividual.getPath().getCost();
+        }
+        return bestIndividual.getComfort() > other.bestIndividual.getComfort();
+    }
+}
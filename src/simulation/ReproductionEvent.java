@@ -29,69 +29,80 @@ public class ReproductionEvent extends Event {
         if (individual.isDead()) {
             return; // Don't process events for dead individuals
         }
+        reproduce(simulator, individual, getTime(), reproductionNumber);
+    }
+
+    /**
+     * Creates a child of an individual and schedules the events of the child and the
+     * next reproduction of the parent. Shared with the simulation loop of
+     * {@link IndividualPEC}, which has no event objects.
+     *
+     * @param simulator The simulator
+     * @param individual The parent, which must be alive
+     * @param time The time of the reproduction
+     * @param reproductionNumber The sequence number of this reproduction
+     */
+    static void reproduce(Simulator simulator, Individual individual, double time, int reproductionNumber) {
+        simulator.getMetrics().recordReproduction();
 
         // Create a new individual as a child of the current individual
         Individual child = new Individual(
                 individual,
-                getTime(),
+                time,
                 simulator.getDeathMean(),
-                simulator.getComfortSensitivity(),
+                simulator.getComfortCalculator(),
                 simulator.getGrid(),
                 simulator.getRandom()
         );
 
+        if (simulator.getProfiler() != null) {
+            simulator.getProfiler().recordBirth(child.getPath().getLength());
+        }
+
         // Add the child to the population
         boolean epidemicTriggered = simulator.getPopulation().addIndividual(child);
 
         // Handle epidemic if triggered
         if (epidemicTriggered) {
-            simulator.getPopulation().simulateEpidemic(simulator.getRandom());
+            simulator.simulateEpidemic();
         }
 
         // Schedule death event for the child
         if (child.getDeathTime() <= simulator.getSimulationTime()) {
-            DeathEvent deathEvent = new DeathEvent(child.getDeathTime(), child);
-            simulator.getPEC().addEvent(deathEvent);
+            simulator.scheduleDeath(child, child.getDeathTime());
         }
 
         // Schedule first move for the child
         double firstMoveTime = child.calculateNextMoveTime(
-                getTime(),
+                time,
                 simulator.getMoveMean(),
                 simulator.getRandom()
         );
 
         if (firstMoveTime <= simulator.getSimulationTime()) {
-            MoveEvent moveEvent = new MoveEvent(firstMoveTime, child, 1);
-            simulator.getPEC().addEvent(moveEvent);
+            simulator.scheduleMove(child, firstMoveTime, 1);
         }
 
         // Schedule first reproduction for the child
         double firstReproductionTime = child.calculateNextReproductionTime(
-                getTime(),
+                time,
                 simulator.getReproductionMean(),
                 simulator.getRandom()
         );
 
         if (firstReproductionTime <= simulator.getSimulationTime()) {
-            ReproductionEvent reproductionEvent = new ReproductionEvent(firstReproductionTime, child, 1);
-            simulator.getPEC().addEvent(reproductionEvent);
+            simulator.scheduleReproduction(child, firstReproductionTime, 1);
         }
 
         // Schedule next reproduction for the parent
         double nextReproductionTime = individual.calculateNextReproductionTime(
-                getTime(),
+                time,
                 simulator.getReproductionMean(),
                 simulator.getRandom()
         );
 
         if (nextReproductionTime <= simulator.getSimulationTime()) {
-            ReproductionEvent nextReproduction = new ReproductionEvent(
-                    nextReproductionTime,
-                    individual,
-                    reproductionNumber + 1
-            );
-            simulator.getPEC().addEvent(nextReproduction);
+            simulator.scheduleReproduction(individual, nextReproductionTime, reproductionNumber + 1);
         }
     }
 
@@ -100,6 +111,7 @@ public class ReproductionEvent extends Event {
      *
      * @return The individual
      */
+    @Override
     public Individual getIndividual() {
         return individual;
     }
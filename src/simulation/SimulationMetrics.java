@@ -0,0 +1,193 @@
+package simulation;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counters of one simulation. The counters of the event types and of cycle
+ * removals are plain fields bumped by the events; the others are read on demand
+ * from the PEC and the population, which keep them anyway, so counting costs a
+ * few increments per event whether or not anyone reads the metrics.
+ * The counters are written by the simulation thread only. They can be read from
+ * any thread, such as through JMX, but may then lag slightly behind.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+    private final Simulator simulator;
+    private long moveEvents;
+    private long reproductionEvents;
+    private long deathEvents;
+    private long cycleRemovals;
+    private long startNanos; // When the simulation started, or 0
+    private long stopNanos; // When the simulation ended, or 0 while it runs
+    private long startEvents; // Events already processed when it started, e.g. restored from a checkpoint
+
+    /**
+     * Creates the metrics of a simulator.
+     *
+     * @param simulator The simulator
+     */
+    SimulationMetrics(Simulator simulator) {
+        this.simulator = simulator;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, e.g. for JConsole.
+     *
+     * @param name The object name, e.g. "pathfinder:type=SimulationMetrics"
+     * @throws JMException If the name is invalid or already registered
+     */
+    public void register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server.
+     *
+     * @param name The object name they were registered with
+     * @throws JMException If the name is invalid or not registered
+     */
+    public void unregister(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+    }
+
+    /**
+     * Writes the event counters, for a checkpoint.
+     *
+     * @param out The output
+     * @throws IOException If writing fails
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(moveEvents);
+        out.writeLong(reproductionEvents);
+        out.writeLong(deathEvents);
+        out.writeLong(cycleRemovals);
+    }
+
+    /**
+     * Reads the event counters written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input
+     * @throws IOException If reading fails
+     */
+    void readFrom(DataInput in) throws IOException {
+        moveEvents = in.readLong();
+        reproductionEvents = in.readLong();
+        deathEvents = in.readLong();
+        cycleRemovals = in.readLong();
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+        stopNanos = 0;
+        startEvents = getEventsProcessed();
+    }
+
+    void stop() {
+        stopNanos = System.nanoTime();
+    }
+
+    void recordMove(boolean cycleRemoved) {
+        moveEvents++;
+        if (cycleRemoved) {
+            cycleRemovals++;
+        }
+    }
+
+    void recordReproduction() {
+        reproductionEvents++;
+    }
+
+    void recordDeath() {
+        deathEvents++;
+    }
+
+    @Override
+    public long getEventsProcessed() {
+        return simulator.getPEC().getProcessedEvents();
+    }
+
+    @Override
+    public long getMoveEvents() {
+        return moveEvents;
+    }
+
+    @Override
+    public long getReproductionEvents() {
+        return reproductionEvents;
+    }
+
+    @Override
+    public long getDeathEvents() {
+        return deathEvents;
+    }
+
+    @Override
+    public long getStaleEventsSkipped() {
+        return simulator.getPEC().getStaleEventsSkipped();
+    }
+
+    @Override
+    public long getStaleEventsPurged() {
+        return simulator.getPEC().getStaleEventsPurged();
+    }
+
+    @Override
+    public long getEpidemics() {
+        return simulator.getPopulation().getEpidemics();
+    }
+
+    @Override
+    public long getEpidemicDeaths() {
+        return simulator.getPopulation().getEpidemicDeaths();
+    }
+
+    @Override
+    public long getIndividualsKilled() {
+        return deathEvents + getEpidemicDeaths();
+    }
+
+    @Override
+    public long getCycleRemovals() {
+        return cycleRemovals;
+    }
+
+    @Override
+    public int getPendingEvents() {
+        return simulator.getPEC().size();
+    }
+
+    @Override
+    public int getPendingEventsHighWater() {
+        return simulator.getPEC().getMaxSize();
+    }
+
+    @Override
+    public int getPopulationSize() {
+        return simulator.getPopulation().getSize();
+    }
+
+    @Override
+    public int getPopulationHighWater() {
+        return simulator.getPopulation().getMaxSize();
+    }
+
+    @Override
+    public double getSimulationTime() {
+        return simulator.getCurrentTime();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        if (startNanos == 0) {
+            return 0.0;
+        }
+        long elapsedNanos = (stopNanos != 0 ? stopNanos : System.nanoTime()) - startNanos;
+        return elapsedNanos > 0 ? (getEventsProcessed() - startEvents) / (elapsedNanos / 1e9) : 0.0;
+    }
+}
@@ -0,0 +1,119 @@
+package simulation;
+
+/**
+ * Management interface of {@link SimulationMetrics}, as seen through JMX.
+ */
+public interface SimulationMetricsMBean {
+    /**
+     * Gets the number of processed events of all types.
+     *
+     * @return The number of processed events
+     */
+    long getEventsProcessed();
+
+    /**
+     * Gets the number of processed move events.
+     *
+     * @return The number of move events
+     */
+    long getMoveEvents();
+
+    /**
+     * Gets the number of processed reproduction events.
+     *
+     * @return The number of reproduction events
+     */
+    long getReproductionEvents();
+
+    /**
+     * Gets the number of processed death events.
+     *
+     * @return The number of death events
+     */
+    long getDeathEvents();
+
+    /**
+     * Gets the number of stale events dropped when they reached the front of the PEC.
+     *
+     * @return The number of skipped stale events
+     */
+    long getStaleEventsSkipped();
+
+    /**
+     * Gets the number of stale events removed by bulk purges of the PEC.
+     *
+     * @return The number of purged stale events
+     */
+    long getStaleEventsPurged();
+
+    /**
+     * Gets the number of epidemics.
+     *
+     * @return The number of epidemics
+     */
+    long getEpidemics();
+
+    /**
+     * Gets the number of individuals killed by epidemics.
+     *
+     * @return The number of epidemic deaths
+     */
+    long getEpidemicDeaths();
+
+    /**
+     * Gets the number of individuals killed, by death events and by epidemics.
+     *
+     * @return The number of killed individuals
+     */
+    long getIndividualsKilled();
+
+    /**
+     * Gets the number of cycles cut out of paths by moves.
+     *
+     * @return The number of cycle removals
+     */
+    long getCycleRemovals();
+
+    /**
+     * Gets the number of live events in the PEC.
+     *
+     * @return The number of pending events
+     */
+    int getPendingEvents();
+
+    /**
+     * Gets the largest number of live events the PEC has held.
+     *
+     * @return The high-water mark of the pending events
+     */
+    int getPendingEventsHighWater();
+
+    /**
+     * Gets the size of the population.
+     *
+     * @return The population size
+     */
+    int getPopulationSize();
+
+    /**
+     * Gets the largest size the population has reached.
+     *
+     * @return The high-water mark of the population size
+     */
+    int getPopulationHighWater();
+
+    /**
+     * Gets the current simulation time.
+     *
+     * @return The simulation time
+     */
+    double getSimulationTime();
+
+    /**
+     * Gets the number of processed events per second of wall-clock time since the simulation started.
+     * Events restored from a checkpoint are not counted.
+     *
+     * @return The event rate, or 0 before the simulation starts
+     */
+    double getEventsPerSecond();
+}
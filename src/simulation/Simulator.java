@@ -5,23 +5,53 @@ import model.Grid;
 import model.Individual;
 import model.Point;
 import model.Population;
-
-import java.util.Random;
+import util.ComfortCalculator;
+import util.RandomSource;
+import util.SplittableRandomSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Main simulation engine for the pathfinder problem.
  */
 public class Simulator {
+    private static final int CHECKPOINT_MAGIC = 0x50464350; // "PFCP"
+    private static final int CHECKPOINT_VERSION = 2;
+    private static final int CHECKPOINT_CHECK_EVENTS = 1024; // Events between looks at the checkpoint clock
+    private static final byte DEATH_EVENT = 0;
+    private static final byte MOVE_EVENT = 1;
+    private static final byte REPRODUCTION_EVENT = 2;
+
     private final Grid grid;
-    private final Population population;
+    private final int maxPopulation;
+    private Population population;
     private final PEC pec;
-    private final Random random;
+    private final IndividualPEC individualPEC; // The PEC if it keeps one entry per individual, otherwise null
+    private RandomSource random;
     private final double comfortSensitivity;
+    private final ComfortCalculator comfortCalculator;
     private final double deathMean;
     private final double moveMean;
     private final double reproductionMean;
     private final double simulationTime;
+    private final SimulationMetrics metrics;
+    private OutputGenerator output;
+    private Consumer<SimulationMetrics> metricsListener;
+    private EventProfiler profiler; // Null unless profiling
+    private CheckpointWriter checkpointWriter; // Null unless checkpointing
+    private boolean resumed; // True if the state was restored from a checkpoint
     private double currentTime;
+    private double firstHitTime; // Time the final point was first reached, or NaN
     private int observationCount;
 
     /**
@@ -39,21 +69,71 @@ public class Simulator {
     public Simulator(Grid grid, int initialPopulation, int maxPopulation,
                      double comfortSensitivity, double deathMean, double moveMean,
                      double reproductionMean, double simulationTime) {
+        this(grid, initialPopulation, maxPopulation, comfortSensitivity, deathMean, moveMean,
+                reproductionMean, simulationTime, new HeapPEC());
+    }
+
+    /**
+     * Creates a new simulator with the given parameters and pending event container.
+     *
+     * @param grid The grid
+     * @param initialPopulation The initial population size (ν)
+     * @param maxPopulation The maximum population size (νmax)
+     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param deathMean The mean value for the death event (μ)
+     * @param moveMean The mean value for the move event (δ)
+     * @param reproductionMean The mean value for the reproduction event (ρ)
+     * @param simulationTime The final time of the simulation (τ)
+     * @param pec The empty PEC to schedule events in
+     */
+    public Simulator(Grid grid, int initialPopulation, int maxPopulation,
+                     double comfortSensitivity, double deathMean, double moveMean,
+                     double reproductionMean, double simulationTime, PEC pec) {
+        this(grid, initialPopulation, maxPopulation, comfortSensitivity, deathMean, moveMean,
+                reproductionMean, simulationTime, pec, RandomSource.create());
+    }
+
+    /**
+     * Creates a new simulator with the given parameters, pending event container and random source.
+     * Simulators given sources created from the same seed run identically.
+     *
+     * @param grid The grid
+     * @param initialPopulation The initial population size (ν)
+     * @param maxPopulation The maximum population size (νmax)
+     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     * @param deathMean The mean value for the death event (μ)
+     * @param moveMean The mean value for the move event (δ)
+     * @param reproductionMean The mean value for the reproduction event (ρ)
+     * @param simulationTime The final time of the simulation (τ)
+     * @param pec The empty PEC to schedule events in
+     * @param random The random source, used by this simulator only
+     */
+    public Simulator(Grid grid, int initialPopulation, int maxPopulation,
+                     double comfortSensitivity, double deathMean, double moveMean,
+                     double reproductionMean, double simulationTime, PEC pec, RandomSource random) {
         this.grid = grid;
-        this.random = new Random();
+        this.maxPopulation = maxPopulation;
+        this.random = random;
         this.comfortSensitivity = comfortSensitivity;
+        this.comfortCalculator = new ComfortCalculator(grid, comfortSensitivity);
         this.deathMean = deathMean;
         this.moveMean = moveMean;
         this.reproductionMean = reproductionMean;
         this.simulationTime = simulationTime;
+        this.output = new OutputGenerator(System.out, false);
+        this.metricsListener = metrics -> { };
         this.currentTime = 0.0;
+        this.firstHitTime = Double.NaN;
         this.observationCount = 0;
 
         // Initialize PEC
-        this.pec = new PEC();
+        this.pec = pec;
+        this.individualPEC = pec instanceof IndividualPEC ? (IndividualPEC) pec : null;
 
         // Initialize population
         this.population = new Population(grid, initialPopulation, maxPopulation, comfortSensitivity, deathMean, random, currentTime);
+        this.population.setDeathListener(pec::discardEventsOf);
+        this.metrics = new SimulationMetrics(this);
 
         // Schedule initial events for each individual
         for (Individual individual : population.getIndividuals()) {
@@ -61,6 +141,64 @@ public class Simulator {
         }
     }
 
+    /**
+     * Sets where the observations are printed. By default they go to standard output.
+     * The output is flushed when the simulation ends.
+     *
+     * @param output The output generator
+     */
+    public void setOutputGenerator(OutputGenerator output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets the listener told about the metrics at every observation, whether or
+     * not observations are printed, e.g. to export them to a file.
+     *
+     * @param metricsListener The listener
+     */
+    public void setMetricsListener(Consumer<SimulationMetrics> metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Sets the profiler that times the events, epidemics and observations of
+     * this simulation. Without one nothing is timed.
+     *
+     * @param profiler The profiler, or null to stop profiling
+     */
+    public void setProfiler(EventProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Gets the profiler of this simulation.
+     *
+     * @return The profiler, or null if the simulation is not profiled
+     */
+    public EventProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the writer that periodically saves checkpoints of this simulation.
+     * The state is captured between two events and written by the writer's own thread.
+     *
+     * @param checkpointWriter The writer, or null to stop checkpointing
+     */
+    public void setCheckpointWriter(CheckpointWriter checkpointWriter) {
+        this.checkpointWriter = checkpointWriter;
+    }
+
+    /**
+     * Gets the metrics of this simulation.
+     *
+     * @return The metrics
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Schedules the initial events (death, first move, first reproduction) for a new individual.
      *
@@ -69,22 +207,63 @@ public class Simulator {
     private void scheduleInitialEvents(Individual individual) {
         // Schedule death event
         if (individual.getDeathTime() <= simulationTime) {
-            DeathEvent deathEvent = new DeathEvent(individual.getDeathTime(), individual);
-            pec.addEvent(deathEvent);
+            scheduleDeath(individual, individual.getDeathTime());
         }
 
         // Schedule first move
         double firstMoveTime = individual.calculateNextMoveTime(currentTime, moveMean, random);
         if (firstMoveTime <= simulationTime) {
-            MoveEvent moveEvent = new MoveEvent(firstMoveTime, individual, 1);
-            pec.addEvent(moveEvent);
+            scheduleMove(individual, firstMoveTime, 1);
         }
 
         // Schedule first reproduction
         double firstReproductionTime = individual.calculateNextReproductionTime(currentTime, reproductionMean, random);
         if (firstReproductionTime <= simulationTime) {
-            ReproductionEvent reproductionEvent = new ReproductionEvent(firstReproductionTime, individual, 1);
-            pec.addEvent(reproductionEvent);
+            scheduleReproduction(individual, firstReproductionTime, 1);
+        }
+    }
+
+    /**
+     * Schedules the death of an individual, as an event or as a clock of the individual.
+     *
+     * @param individual The individual
+     * @param time The time of death
+     */
+    void scheduleDeath(Individual individual, double time) {
+        if (individualPEC != null) {
+            individualPEC.schedule(individual, IndividualPEC.DEATH, time, 0);
+        } else {
+            pec.addEvent(new DeathEvent(time, individual));
+        }
+    }
+
+    /**
+     * Schedules a move of an individual, as an event or as a clock of the individual.
+     *
+     * @param individual The individual
+     * @param time The time of the move
+     * @param moveNumber The number of the move
+     */
+    void scheduleMove(Individual individual, double time, int moveNumber) {
+        if (individualPEC != null) {
+            individualPEC.schedule(individual, IndividualPEC.MOVE, time, moveNumber);
+        } else {
+            pec.addEvent(new MoveEvent(time, individual, moveNumber));
+        }
+    }
+
+    /**
+     * Schedules a reproduction of an individual, as an event or as a clock of the individual.
+     *
+     * @param individual The individual
+     * @param time The time of the reproduction
+     * @param reproductionNumber The number of the reproduction
+     */
+    void scheduleReproduction(Individual individual, double time, int reproductionNumber) {
+        if (individualPEC != null) {
+            individualPEC.schedule(individual, IndividualPEC.REPRODUCTION, time, reproductionNumber);
+        } else {
+            pec.addEvent(new ReproductionEvent(time, individual, reproductionNumber));
         }
     }
 
@@ -94,32 +273,40 @@ public class Simulator {
      * @return The best individual found during the simulation
      */
     public Individual simulate() {
-        // Print initial observation (time 0) - this is observation 0
-        observePopulation();
+        metrics.start();
+
+        // Print initial observation (time 0) - this is observation 0; a resumed run has printed it already
+        if (!resumed) {
+            observePopulation();
+            if (population.isFinalPointReached()) {
+                firstHitTime = currentTime; // Started on the final point
+            }
+        }
 
         // Main simulation loop
         while (!pec.isEmpty()) {
-            Event event = pec.nextEvent();
+            // Process the next event (dead individuals leave the population as they die)
+            boolean processed = individualPEC != null ? processNextClock() : processNextEvent();
 
             // If event time exceeds simulation time, exit loop
-            if (event.getTime() > simulationTime) {
+            if (!processed) {
                 break;
             }
-
-            // Update current time
-            currentTime = event.getTime();
-
-            // Process the event
-            event.process(this);
-
-            // Remove dead individuals
-            population.removeDeadIndividuals();
+            if (Double.isNaN(firstHitTime) && population.isFinalPointReached()) {
+                firstHitTime = currentTime;
+            }
 
             // Check if it's time for an observation
             // We need observations at τ/20, 2τ/20, 3τ/20, ..., 19τ/20, 20τ/20
             if (observationCount <= 19 && currentTime >= observationCount * (simulationTime / 20)) {
                 observePopulation();
             }
+
+            // Save a checkpoint if one is due, looking at the clock only now and then
+            if (checkpointWriter != null && pec.getProcessedEvents() % CHECKPOINT_CHECK_EVENTS == 0
+                    && checkpointWriter.isDue()) {
+                checkpointWriter.submit(checkpoint());
+            }
         }
 
         // Final observation at time τ (observation 20) - ensure we always get observation 20
@@ -127,20 +314,292 @@ public class Simulator {
             currentTime = simulationTime;
             observePopulation();
         }
+        metrics.stop();
+        output.flush();
 
         // Return the best individual found during the simulation
         return population.getBestIndividualOverall();
     }
 
     /**
-     * Observes the current state of the population and prints it.
+     * Takes the next event from the PEC and processes it.
+     *
+     * @return False if the event is after the final time and was not processed, true otherwise
+     */
+    private boolean processNextEvent() {
+        Event event = pec.nextEvent();
+        if (event.getTime() > simulationTime) {
+            return false;
+        }
+
+        // Update current time
+        currentTime = event.getTime();
+
+        if (profiler == null) {
+            event.process(this);
+        } else {
+            long start = System.nanoTime();
+            event.process(this);
+            profiler.recordEvent(event, System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next clock from the PEC of individuals and carries out what it stands
+     * for, without creating an event.
+     *
+     * @return False if the clock is after the final time and was not processed, true otherwise
+     */
+    private boolean processNextClock() {
+        double time = individualPEC.peekTime();
+        if (time > simulationTime) {
+            return false;
+        }
+
+        // Update current time
+        currentTime = time;
+
+        Individual individual = individualPEC.peekIndividual();
+        int clock = individualPEC.peekClock();
+        int number = individualPEC.peekNumber();
+        individualPEC.removeFirst();
+
+        long start = profiler == null ? 0 : System.nanoTime();
+        if (clock == IndividualPEC.MOVE) {
+            MoveEvent.move(this, individual, time, number);
+        } else if (clock == IndividualPEC.REPRODUCTION) {
+            ReproductionEvent.reproduce(this, individual, time, number);
+        } else {
+            DeathEvent.die(this, individual);
+        }
+        if (profiler != null) {
+            profiler.recordClock(clock, System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Captures the complete state of the simulation between two events: the clock,
+     * the observation counter, the random state, the metrics, the population with
+     * the paths of its individuals and the live events of the PEC.
+     * A simulator created with the same parameters and given this state by
+     * {@link #resume(InputStream)} continues exactly like this one. Stale events are
+     * left out, so only the counts of skipped and purged stale events may differ.
+     *
+     * @return The state, uncompressed
+     * @throws IllegalStateException If the random source or the PEC cannot be captured
+     */
+    public byte[] checkpoint() {
+        if (!(random instanceof SplittableRandomSource) || !(pec instanceof AbstractPEC || individualPEC != null)) {
+            throw new IllegalStateException("Only simulations with the built-in random source and a built-in PEC can be checkpointed");
+        }
+        SplittableRandomSource splittableRandom = (SplittableRandomSource) random;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            writeParameters(out);
+
+            out.writeDouble(currentTime);
+            out.writeDouble(firstHitTime);
+            out.writeInt(observationCount);
+            out.writeLong(splittableRandom.getSeed());
+            out.writeLong(splittableRandom.getGamma());
+            metrics.writeTo(out);
+            population.writeTo(out);
+
+            out.writeLong(individualPEC != null
+                    ? individualPEC.getNextSequence() : ((AbstractPEC) pec).getNextSequence());
+            out.writeLong(pec.getProcessedEvents());
+            out.writeInt(pec.getMaxSize());
+            out.writeLong(pec.getStaleEventsSkipped());
+            out.writeLong(pec.getStaleEventsPurged());
+            List<Event> events = individualPEC != null
+                    ? individualPEC.getLiveEvents() : ((AbstractPEC) pec).getLiveEvents();
+            out.writeInt(events.size());
+            for (Event event : events) {
+                writeEvent(out, event);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replaces the state of this simulation, which must not have started yet, with
+     * a state captured by {@link #checkpoint()}. The next call to {@link #simulate()}
+     * continues from that state.
+     *
+     * @param in The state, uncompressed
+     * @throws IOException If reading fails or the input is not a checkpoint
+     * @throws IllegalArgumentException If the checkpoint was taken on another grid or with other parameters
+     * @throws IllegalStateException If the PEC cannot be restored
+     */
+    public void resume(InputStream in) throws IOException {
+        if (!(pec instanceof AbstractPEC || individualPEC != null)) {
+            throw new IllegalStateException("Only simulations with a built-in PEC can be resumed");
+        }
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("Not a checkpoint file");
+        }
+        int version = data.readInt();
+        if (version != CHECKPOINT_VERSION) {
+            throw new IOException("Unsupported checkpoint version: " + version);
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeParameters(new DataOutputStream(expected));
+        byte[] parameters = new byte[expected.size()];
+        data.readFully(parameters);
+        if (!Arrays.equals(parameters, expected.toByteArray())) {
+            throw new IllegalArgumentException("The checkpoint was taken on another grid or with other simulation parameters");
+        }
+
+        currentTime = data.readDouble();
+        firstHitTime = data.readDouble();
+        observationCount = data.readInt();
+        random = new SplittableRandomSource(data.readLong(), data.readLong());
+        metrics.readFrom(data);
+        population = Population.readFrom(data, grid, maxPopulation, comfortSensitivity);
+        population.setDeathListener(pec::discardEventsOf);
+
+        long nextSequence = data.readLong();
+        long processedEvents = data.readLong();
+        int maxSize = data.readInt();
+        long staleEventsSkipped = data.readLong();
+        long staleEventsPurged = data.readLong();
+        int size = data.readInt();
+        List<Event> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(readEvent(data));
+        }
+        if (individualPEC != null) {
+            individualPEC.restore(events, nextSequence, processedEvents, maxSize,
+                    staleEventsSkipped, staleEventsPurged);
+        } else {
+            ((AbstractPEC) pec).restore(events, nextSequence, processedEvents, maxSize,
+                    staleEventsSkipped, staleEventsPurged);
+        }
+        resumed = true;
+    }
+
+    /**
+     * Writes the parameters a checkpoint must be resumed with: the layout of the
+     * grid and the simulation parameters.
+     *
+     * @param out The output
+     * @throws IOException If writing fails
+     */
+    private void writeParameters(DataOutputStream out) throws IOException {
+        grid.writeLayoutTo(out);
+        out.writeInt(maxPopulation);
+        out.writeDouble(comfortSensitivity);
+        out.writeDouble(deathMean);
+        out.writeDouble(moveMean);
+        out.writeDouble(reproductionMean);
+        out.writeDouble(simulationTime);
+    }
+
+    /**
+     * Writes a live event with its individual as a slot of the population.
+     *
+     * @param out The output
+     * @param event The event
+     * @throws IOException If writing fails
+     */
+    private void writeEvent(DataOutputStream out, Event event) throws IOException {
+        if (event instanceof MoveEvent) {
+            out.writeByte(MOVE_EVENT);
+        } else if (event instanceof ReproductionEvent) {
+            out.writeByte(REPRODUCTION_EVENT);
+        } else if (event instanceof DeathEvent) {
+            out.writeByte(DEATH_EVENT);
+        } else {
+            throw new IllegalStateException("Unknown event type: " + event.getClass().getName());
+        }
+        out.writeDouble(event.getTime());
+        out.writeLong(event.getSequence());
+        out.writeInt(population.indexOf(event.getIndividual()));
+        if (event instanceof MoveEvent) {
+            out.writeInt(((MoveEvent) event).getMoveNumber());
+        } else if (event instanceof ReproductionEvent) {
+            out.writeInt(((ReproductionEvent) event).getReproductionNumber());
+        }
+    }
+
+    /**
+     * Reads an event written by {@link #writeEvent(DataOutputStream, Event)}.
+     *
+     * @param in The input
+     * @return The event, with its sequence number
+     * @throws IOException If reading fails or the event type is unknown
+     */
+    private Event readEvent(DataInput in) throws IOException {
+        byte type = in.readByte();
+        double time = in.readDouble();
+        long sequence = in.readLong();
+        Individual individual = population.get(in.readInt());
+        Event event;
+        if (type == MOVE_EVENT) {
+            event = new MoveEvent(time, individual, in.readInt());
+        } else if (type == REPRODUCTION_EVENT) {
+            event = new ReproductionEvent(time, individual, in.readInt());
+        } else if (type == DEATH_EVENT) {
+            event = new DeathEvent(time, individual);
+        } else {
+            throw new IOException("Unknown event type in checkpoint: " + type);
+        }
+        event.setSequence(sequence);
+        return event;
+    }
+
+    /**
+     * Simulates an epidemic in the population, timing it if the simulation is profiled.
+     */
+    void simulateEpidemic() {
+        if (profiler == null) {
+            population.simulateEpidemic(random);
+            return;
+        }
+
+        long deathsBefore = population.getEpidemicDeaths();
+        long start = System.nanoTime();
+        population.simulateEpidemic(random);
+        profiler.recordEpidemic(System.nanoTime() - start, population.getEpidemicDeaths() - deathsBefore);
+    }
+
+    /**
+     * Observes the current state of the population and prints it, timing it if the
+     * simulation is profiled.
      */
     private void observePopulation() {
+        if (profiler == null) {
+            printObservation();
+        } else {
+            long start = System.nanoTime();
+            printObservation();
+            profiler.recordObservation(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Prints the current state of the population.
+     */
+    private void printObservation() {
+        metricsListener.accept(metrics);
+        if (!output.isObservationEnabled()) {
+            observationCount++; // Keeps the observation times, without gathering anything
+            return;
+        }
+
         Individual bestIndividual = population.getBestIndividual();
         boolean reachedFinal = bestIndividual != null &&
                 bestIndividual.hasReachedFinalPoint(grid.getFinalPoint());
 
-        OutputGenerator.printObservation(
+        output.printObservation(
                 observationCount,
                 currentTime,
                 pec.getProcessedEvents(),
@@ -181,11 +640,11 @@ public class Simulator {
     }
 
     /**
-     * Gets the random number generator.
+     * Gets the random source.
      *
-     * @return The random number generator
+     * @return The random source
      */
-    public Random getRandom() {
+    public RandomSource getRandom() {
         return random;
     }
 
@@ -198,6 +657,24 @@ public class Simulator {
         return comfortSensitivity;
     }
 
+    /**
+     * Gets the time at which an individual first reached the final point.
+     *
+     * @return The time of the first hit, or NaN if the final point has not been reached
+     */
+    public double getFirstHitTime() {
+        return firstHitTime;
+    }
+
+    /**
+     * Gets the comfort calculator for the grid and comfort sensitivity of this simulation.
+     *
+     * @return The comfort calculator
+     */
+    public ComfortCalculator getComfortCalculator() {
+        return comfortCalculator;
+    }
+
     /**
      * Gets the mean value for the death event (μ).
      *
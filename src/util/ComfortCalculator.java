@@ -1,12 +1,81 @@
 package util;
 
+import model.Grid;
 import model.Path;
 import model.Point;
 
 /**
  * Utility class for calculating comfort values.
+ * An instance is bound to one grid and one sensitivity, so the constants of the
+ * comfort formula are computed once and an integral sensitivity k, as in all the
+ * shipped scenarios, is applied by repeated squaring instead of {@link Math#pow}.
  */
 public class ComfortCalculator {
+    private final Point finalPoint;
+    private final int costScale; // maxCost - 1
+    private final double distanceDivisor; // gridSize + 1
+    private final double comfortSensitivity;
+    private final int integerSensitivity; // k if it is a positive integer, otherwise 0
+
+    /**
+     * Creates a comfort calculator for the given grid and sensitivity.
+     *
+     * @param grid The grid, whose obstacles and special cost zones are already in place
+     * @param comfortSensitivity The comfort sensitivity parameter (k)
+     */
+    public ComfortCalculator(Grid grid, double comfortSensitivity) {
+        this.finalPoint = grid.getFinalPoint();
+        this.costScale = grid.getMaxCost() - 1;
+        this.distanceDivisor = grid.getWidth() + grid.getHeight() + 1;
+        this.comfortSensitivity = comfortSensitivity;
+        this.integerSensitivity = comfortSensitivity > 0 && comfortSensitivity == (int) comfortSensitivity
+                ? (int) comfortSensitivity : 0;
+    }
+
+    /**
+     * Calculates the comfort value for a path ending at its last point.
+     *
+     * @param path The path
+     * @return The calculated comfort value
+     */
+    public double calculateComfort(Path path) {
+        int pathLength = path.getLength();
+        if (pathLength == 0) {
+            return 0.0; // As per PDF, initial comfort is 0
+        }
+
+        double costComponent = 1 - (double) (path.getCost() - pathLength + 2) / (costScale * pathLength + 3);
+        double distanceComponent = 1 - path.getLastPoint().manhattanDistance(finalPoint) / distanceDivisor;
+
+        // Both components are raised to k, so raise their product once
+        double product = costComponent * distanceComponent;
+        double comfort = integerSensitivity > 0
+                ? power(product, integerSensitivity)
+                : Math.pow(product, comfortSensitivity);
+
+        // Ensure comfort is between 0 and 1
+        return Math.min(1.0, Math.max(0.0, comfort));
+    }
+
+    /**
+     * Raises a value to a positive integer power by repeated squaring.
+     *
+     * @param base The value
+     * @param exponent The power, at least 1
+     * @return The value raised to the power
+     */
+    private static double power(double base, int exponent) {
+        double result = 1.0;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
     /**
      * Calculates the comfort value for a path.
      *
@@ -41,4 +110,4 @@ public class ComfortCalculator {
         // Ensure comfort is between 0 and 1
         return Math.min(1.0, Math.max(0.0, comfort));
     }
-}
\ No newline at end of file
+}
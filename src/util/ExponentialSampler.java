@@ -0,0 +1,74 @@
+package util;
+
+/**
+ * Samples exponentially distributed values with the ziggurat method
+ * (Marsaglia and Tsang, 2000).
+ * The area under the density is covered by 256 strips of equal area: a base strip
+ * holding the tail and 255 horizontal rectangles. One 64-bit draw picks a strip and
+ * a point in it, and in about 99% of the cases the point lies inside the density, so
+ * the value is returned with one multiplication and no logarithm.
+ */
+public final class ExponentialSampler {
+    private static final int STRIPS = 256;
+    private static final double TAIL_START = 7.69711747013104972; // Right edge of the last rectangle (R)
+    private static final double STRIP_AREA = 3.94965982258171e-3; // Area of every strip (V)
+    private static final double UNIT = 0x1.0p-53; // Turns the upper 53 bits of a draw into [0, 1)
+
+    // Right edges of the strips, decreasing: X[0] is the virtual width of the base strip, X[256] = 0
+    private static final double[] X = new double[STRIPS + 1];
+    // Density at the right edges, F[i] = exp(-X[i])
+    private static final double[] F = new double[STRIPS + 1];
+
+    static {
+        X[0] = STRIP_AREA / Math.exp(-TAIL_START);
+        X[1] = TAIL_START;
+        for (int i = 1; i < STRIPS - 1; i++) {
+            X[i + 1] = -Math.log(STRIP_AREA / X[i] + Math.exp(-X[i]));
+        }
+        X[STRIPS] = 0.0;
+        for (int i = 0; i <= STRIPS; i++) {
+            F[i] = Math.exp(-X[i]);
+        }
+    }
+
+    private ExponentialSampler() {
+    }
+
+    /**
+     * Samples an exponentially distributed value with mean 1.
+     *
+     * @param random The random source
+     * @return A value of at least 0
+     */
+    public static double sample(RandomSource random) {
+        while (true) {
+            long bits = random.nextLong();
+            int strip = (int) bits & (STRIPS - 1); // Low 8 bits pick the strip
+            double x = (bits >>> 11) * UNIT * X[strip]; // Upper 53 bits place the point
+
+            if (x < X[strip + 1]) {
+                return x; // Inside the rectangle under the density
+            }
+            if (strip == 0) {
+                // Base strip beyond the last rectangle: the tail is again exponential
+                return TAIL_START - Math.log(1.0 - random.nextDouble());
+            }
+            // Wedge between the rectangle and the density
+            double y = F[strip] + random.nextDouble() * (F[strip + 1] - F[strip]);
+            if (y < Math.exp(-x)) {
+                return x;
+            }
+        }
+    }
+
+    /**
+     * Samples an exponentially distributed value with the given mean.
+     *
+     * @param random The random source
+     * @param mean The mean
+     * @return A value of at least 0
+     */
+    public static double sample(RandomSource random, double mean) {
+        return mean * sample(random);
+    }
+}
@@ -5,7 +5,6 @@ import model.Point;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Utility class for generating random grid elements.
@@ -23,7 +22,7 @@ public class RandomGenerator {
      * @return A list of randomly generated obstacle points
      */
     public static List<Point> generateRandomObstacles(int numObstacles, int width, int height,
-                                                      Point initialPoint, Point finalPoint, Random random) {
+                                                      Point initialPoint, Point finalPoint, RandomSource random) {
         List<Point> obstacles = new ArrayList<>();
 
         while (obstacles.size() < numObstacles) {
@@ -49,7 +48,7 @@ public class RandomGenerator {
      * @param random The random number generator
      * @return A list of randomly generated special cost zones
      */
-    public static List<Grid.SpecialCostZone> generateRandomSpecialCostZones(int numZones, int width, int height, Random random) {
+    public static List<Grid.SpecialCostZone> generateRandomSpecialCostZones(int numZones, int width, int height, RandomSource random) {
         List<Grid.SpecialCostZone> zones = new ArrayList<>();
 
         for (int i = 0; i < numZones; i++) {
@@ -0,0 +1,57 @@
+package util;
+
+/**
+ * Source of random numbers for the simulation.
+ * A source is not thread-safe; independent streams for other threads or replicas
+ * are obtained with {@link #split()}, which keeps seeded runs reproducible.
+ */
+public interface RandomSource {
+    /**
+     * Gets the next uniformly distributed value.
+     *
+     * @return A value between 0 (inclusive) and 1 (exclusive)
+     */
+    double nextDouble();
+
+    /**
+     * Gets the next uniformly distributed 64-bit value.
+     *
+     * @return A value in the full range of long
+     */
+    long nextLong();
+
+    /**
+     * Gets the next uniformly distributed integer below a bound.
+     *
+     * @param bound The upper bound (exclusive), which must be positive
+     * @return A value between 0 (inclusive) and the bound (exclusive)
+     */
+    int nextInt(int bound);
+
+    /**
+     * Splits off a new source whose values are independent of this one.
+     * Splitting advances this source, so a seeded source always splits off the same streams.
+     *
+     * @return The new source
+     */
+    RandomSource split();
+
+    /**
+     * Creates a source with an unpredictable seed.
+     *
+     * @return The new source
+     */
+    static RandomSource create() {
+        return new SplittableRandomSource();
+    }
+
+    /**
+     * Creates a source from a seed. Sources created from the same seed produce the same values.
+     *
+     * @param seed The seed
+     * @return The new source
+     */
+    static RandomSource create(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+}
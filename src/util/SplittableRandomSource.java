@@ -0,0 +1,125 @@
+package util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random source using the SplitMix64 algorithm of {@link SplittableRandom}, a fast
+ * 64-bit generator that needs no synchronisation and can split off independent
+ * streams. The algorithm is implemented here, producing exactly the values of
+ * {@link SplittableRandom} for the same seed, so that the state of a source can be
+ * read and restored, e.g. to checkpoint a simulation.
+ */
+public final class SplittableRandomSource implements RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+    private final long gamma; // Odd
+
+    /**
+     * Creates a source with an unpredictable seed.
+     */
+    public SplittableRandomSource() {
+        this(new SplittableRandom().split());
+    }
+
+    /**
+     * Creates a source from a seed.
+     *
+     * @param seed The seed
+     */
+    public SplittableRandomSource(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Recreates a source from the state of another one, see {@link #getSeed()} and {@link #getGamma()}.
+     *
+     * @param seed The current seed
+     * @param gamma The gamma, which must be odd
+     */
+    public SplittableRandomSource(long seed, long gamma) {
+        if ((gamma & 1) == 0) {
+            throw new IllegalArgumentException("Gamma must be odd");
+        }
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    private SplittableRandomSource(SplittableRandom random) {
+        this(random.nextLong(), mixGamma(random.nextLong()));
+    }
+
+    /**
+     * Gets the current seed, which advances with every value drawn.
+     *
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the gamma, the fixed increment of the seed of this stream.
+     *
+     * @return The gamma
+     */
+    public long getGamma() {
+        return gamma;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m; // Power of two
+        } else {
+            // Rejects the values of the last, incomplete range of the bound
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(nextLong(), mixGamma(nextSeed()));
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z; // Too few bit transitions make a weak gamma
+    }
+}
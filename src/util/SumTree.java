@@ -0,0 +1,104 @@
+package util;
+
+/**
+ * Complete binary tree of non-negative weights, for drawing an index with
+ * probability proportional to its weight in O(log n).
+ * Every inner node holds the sum of its two children and is recomputed from them
+ * when a weight changes, instead of being adjusted by the difference as in a
+ * Fenwick tree, so rounding errors do not pile up over millions of updates and a
+ * weight set to 0 is never drawn again.
+ */
+public final class SumTree {
+    private double[] tree; // tree[1] is the root, the weights are the leaves from tree[capacity]
+    private int capacity; // Number of leaves, a power of two
+
+    /**
+     * Creates a tree with every weight at 0.
+     *
+     * @param initialCapacity The number of weights to make room for
+     */
+    public SumTree(int initialCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1;
+        this.tree = new double[2 * capacity];
+    }
+
+    /**
+     * Sets a weight, making room for it if needed.
+     *
+     * @param index The index of the weight
+     * @param weight The weight, at least 0
+     */
+    public void set(int index, double weight) {
+        if (index >= capacity) {
+            grow(index + 1);
+        }
+        int node = capacity + index;
+        tree[node] = weight;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            tree[node] = tree[2 * node] + tree[2 * node + 1];
+        }
+    }
+
+    /**
+     * Gets a weight.
+     *
+     * @param index The index of the weight
+     * @return The weight, 0 if it was never set
+     */
+    public double get(int index) {
+        return index < capacity ? tree[capacity + index] : 0.0;
+    }
+
+    /**
+     * Gets the sum of all weights.
+     *
+     * @return The total weight
+     */
+    public double getTotal() {
+        return tree[1];
+    }
+
+    /**
+     * Finds the index whose share of the cumulative weights contains a target,
+     * i.e. draws an index proportionally to its weight for a uniform target.
+     * Only indices with a positive weight are returned, even at the edges of the
+     * shares where rounding could point to a neighbour.
+     *
+     * @param target A value between 0 (inclusive) and the total weight (exclusive),
+     *               which must be positive
+     * @return The index
+     */
+    public int find(double target) {
+        int node = 1;
+        while (node < capacity) {
+            int left = 2 * node;
+            if (tree[left + 1] <= 0.0 || (target < tree[left] && tree[left] > 0.0)) {
+                node = left;
+            } else {
+                target -= tree[left];
+                node = left + 1;
+            }
+        }
+        return node - capacity;
+    }
+
+    /**
+     * Doubles the number of leaves until the given number of weights fits.
+     *
+     * @param minCapacity The number of weights
+     */
+    private void grow(int minCapacity) {
+        int newCapacity = capacity;
+        while (newCapacity < minCapacity) {
+            newCapacity <<= 1;
+        }
+
+        double[] newTree = new double[2 * newCapacity];
+        System.arraycopy(tree, capacity, newTree, newCapacity, capacity);
+        for (int node = newCapacity - 1; node > 0; node--) {
+            newTree[node] = newTree[2 * node] + newTree[2 * node + 1];
+        }
+        tree = newTree;
+        capacity = newCapacity;
+    }
+}
@@ -4,6 +4,7 @@ import model.Grid;
 import model.Individual;
 import model.Point;
 
+import java.io.PrintStream;
 import java.util.List;
 
 /**
@@ -17,6 +18,7 @@ public class GridVisualizer {
     private static final String ANSI_BLUE = "\u001B[34m";
     private static final String ANSI_PURPLE = "\u001B[35m";
     private static final String ANSI_CYAN = "\u001B[36m";
+    private static final String NEWLINE = System.lineSeparator();
 
     /**
      * Visualizes the grid with the path of the best individual.
@@ -25,6 +27,29 @@ public class GridVisualizer {
      * @param individual The individual whose path to display
      */
     public static void visualizeGrid(Grid grid, Individual individual) {
+        visualizeGrid(grid, individual, System.out);
+    }
+
+    /**
+     * Visualizes the grid with the path of the best individual on the given stream.
+     *
+     * @param grid The grid
+     * @param individual The individual whose path to display
+     * @param out The stream to print to
+     */
+    public static void visualizeGrid(Grid grid, Individual individual, PrintStream out) {
+        out.print(visualizeGrid(grid, individual, new StringBuilder()));
+    }
+
+    /**
+     * Appends the visualization of the grid with the path of the best individual to a builder.
+     *
+     * @param grid The grid
+     * @param individual The individual whose path to display
+     * @param out The builder to append to
+     * @return The builder
+     */
+    public static StringBuilder visualizeGrid(Grid grid, Individual individual, StringBuilder out) {
         int width = grid.getWidth();
         int height = grid.getHeight();
         Point initialPoint = grid.getInitialPoint();
@@ -75,54 +100,55 @@ public class GridVisualizer {
         visualGrid[finY][finX] = 'E';
 
         // Print the grid with colors
-        System.out.println("\nGrid Visualization:");
+        out.append("\nGrid Visualization:").append(NEWLINE);
 
         // Print column numbers
-        System.out.print("  ");
+        out.append("  ");
         for (int x = 0; x < width; x++) {
-            System.out.print((x + 1) + " ");
+            out.append((x + 1) + " ");
         }
-        System.out.println();
+        out.append(NEWLINE);
 
         for (int y = 0; y < height; y++) {
-            System.out.print((height - y) + " "); // Print row numbers
+            out.append((height - y) + " "); // Print row numbers
             for (int x = 0; x < width; x++) {
                 char cell = visualGrid[y][x];
                 switch (cell) {
                     case 'S':
-                        System.out.print(ANSI_GREEN + "S " + ANSI_RESET);
+                        out.append(ANSI_GREEN + "S " + ANSI_RESET);
                         break;
                     case 'E':
-                        System.out.print(ANSI_RED + "E " + ANSI_RESET);
+                        out.append(ANSI_RED + "E " + ANSI_RESET);
                         break;
                     case '*':
-                        System.out.print(ANSI_BLUE + "* " + ANSI_RESET);
+                        out.append(ANSI_BLUE + "* " + ANSI_RESET);
                         break;
                     case '#':
-                        System.out.print(ANSI_YELLOW + "# " + ANSI_RESET);
+                        out.append(ANSI_YELLOW + "# " + ANSI_RESET);
                         break;
                     case '.':
-                        System.out.print(". ");
+                        out.append(". ");
                         break;
                     default:
-                        System.out.print(cell + " ");
+                        out.append(cell + " ");
                 }
             }
-            System.out.println();
+            out.append(NEWLINE);
         }
 
         // Print legend
-        System.out.println("\nLegend:");
-        System.out.println(ANSI_GREEN + "S " + ANSI_RESET + "- Start point");
-        System.out.println(ANSI_RED + "E " + ANSI_RESET + "- End point");
-        System.out.println(ANSI_BLUE + "* " + ANSI_RESET + "- Path");
-        System.out.println(ANSI_YELLOW + "# " + ANSI_RESET + "- Obstacle");
-        System.out.println(". - Empty space");
+        out.append("\nLegend:").append(NEWLINE);
+        out.append(ANSI_GREEN + "S " + ANSI_RESET + "- Start point").append(NEWLINE);
+        out.append(ANSI_RED + "E " + ANSI_RESET + "- End point").append(NEWLINE);
+        out.append(ANSI_BLUE + "* " + ANSI_RESET + "- Path").append(NEWLINE);
+        out.append(ANSI_YELLOW + "# " + ANSI_RESET + "- Obstacle").append(NEWLINE);
+        out.append(". - Empty space").append(NEWLINE);
 
         // Print path cost if available
         if (individual != null) {
-            System.out.println("\nPath Cost: " + individual.getPath().getCost());
-            System.out.println("Comfort: " + individual.getComfort());
+            out.append("\nPath Cost: " + individual.getPath().getCost()).append(NEWLINE);
+            out.append("Comfort: " + individual.getComfort()).append(NEWLINE);
         }
+        return out;
     }
 }
\ No newline at end of file